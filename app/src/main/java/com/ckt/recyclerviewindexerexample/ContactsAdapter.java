@@ -1,10 +1,10 @@
 package com.ckt.recyclerviewindexerexample;
 
 import android.content.Context;
-import android.content.res.AssetFileDescriptor;
 import android.database.Cursor;
-import android.graphics.BitmapFactory;
+import android.graphics.Bitmap;
 import android.net.Uri;
+import android.os.Trace;
 import android.provider.ContactsContract;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -14,18 +14,66 @@ import android.widget.ImageView;
 import android.widget.SectionIndexer;
 import android.widget.TextView;
 
-import java.io.FileNotFoundException;
+import com.ckt.recyclerviewindexer.IndexerMetrics;
+import com.ckt.recyclerviewindexer.PrefixIndex;
+import com.ckt.recyclerviewindexer.ScrubTable;
+import com.ckt.recyclerviewindexer.SectionTable;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ContactsAdapter extends RecyclerView.Adapter<ContactsAdapter.ViewHolder> implements SectionIndexer {
     private Context mContext;
     private Cursor mCursor;
     private ContactsIndexer mContactsIndexer;
+    // section indexer of current cursor, the cursor itself if it's a merged cursor
+    private SectionIndexer mSectionIndexer;
+    private SectionTable mSectionTable;
+    private ScrubTable mScrubTable;
+    private PrefixIndex mPrefixIndex;
+    // ascending cursor rows shown in filtered mode, null if the list isn't filtered
+    private int[] mFilterRows;
+    private SectionTable mFilterSectionTable;
+    private ScrubTable mFilterScrubTable;
+    private ThumbnailCache mThumbnailCache;
+    // thumbnails missing from cache are loaded in batches, one provider query per frame
+    private ThumbnailBatchLoader mThumbnailLoader;
     private onContactClickListener mListener;
+    // metric name of onBindViewHolder
+    public static final String METRIC_BIND = "adapter.bind";
+    // metrics which durations are reported to, null if metrics are disabled
+    private IndexerMetrics mMetrics;
+    // names of trace sections, they are constants so that tracing never builds strings
+    private static final String TRACE_BUILD_INDEX = "ContactsAdapter#buildIndex";
+    private static final String TRACE_BUILD_FILTER_INDEX = "ContactsAdapter#buildFilterIndex";
+    // whether to emit trace sections
+    private boolean mTracing;
+    // duration of the latest index build and filter build, and count of binds, reported by dump
+    private long mIndexBuildNanos;
+    private long mFilterBuildNanos;
+    private final AtomicLong mBindCount = new AtomicLong();
+    // whether to skip thumbnail decodes, for example, while flinging
+    private boolean mLowQuality;
+    // payload of rebinding only the deferred thumbnail of a row
+    private static final Object PAYLOAD_THUMBNAIL = new Object();
+    private final AtomicLong mDeferredThumbnailCount = new AtomicLong();
 
     ContactsAdapter(Context context, Cursor cursor) {
+        this(context, cursor, new ThumbnailCache(context));
+    }
+
+    /**
+     * @param thumbnailCache thumbnail cache, for example, one retained across configuration changes
+     */
+    ContactsAdapter(Context context, Cursor cursor, ThumbnailCache thumbnailCache) {
         mContext = context;
         mCursor = cursor;
         mContactsIndexer = new ContactsIndexer(cursor, ContactsQueryInterface.INDEX_NAME);
+        mSectionIndexer = cursor instanceof SectionIndexer ? (SectionIndexer) cursor : mContactsIndexer;
+        mThumbnailCache = thumbnailCache;
+        mThumbnailLoader = new ThumbnailBatchLoader(context, thumbnailCache);
     }
 
     @Override
@@ -37,55 +85,111 @@ public class ContactsAdapter extends RecyclerView.Adapter<ContactsAdapter.ViewHo
 
     @Override
     public void onBindViewHolder(ContactsAdapter.ViewHolder holder, int position) {
-        mCursor.moveToPosition(position);
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        mBindCount.incrementAndGet();
+        mCursor.moveToPosition(getRow(position));
         // set contact's name
         holder.mContactTextView.setText(mCursor.getString(ContactsQueryInterface.INDEX_NAME));
         // load thumbnail photo
-        String thumbnailUri = mCursor.getString(ContactsQueryInterface.INDEX_PHOTO);
-        if (thumbnailUri != null) {
-            Uri uri = Uri.parse(thumbnailUri);
-            try {
-                AssetFileDescriptor afd = mContext.getContentResolver().openAssetFileDescriptor(uri, "r");
-                if (afd != null)
-                    holder.mAvator.setImageBitmap(BitmapFactory.decodeFileDescriptor(afd.getFileDescriptor()));
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
-        } else {
-            holder.mAvator.setImageResource(R.mipmap.ic_launcher_round);
-        }
+        bindThumbnail(holder, mCursor.getLong(ContactsQueryInterface.INDEX_PHOTO_ID),
+                mCursor.getString(ContactsQueryInterface.INDEX_PHOTO));
 
         // set item click listener
         final Uri contactUri = ContactsContract.Contacts.getLookupUri(
                 mCursor.getLong(ContactsQueryInterface.INDEX_ID),
                 mCursor.getString(ContactsQueryInterface.INDEX_LOOKUP_KEY)
         );
-        holder.itemView.setOnClickListener(v -> mListener.onContactClick(contactUri));
+        // placeholder of a row which is not loaded yet has no uri
+        holder.itemView.setOnClickListener(contactUri == null ? null
+                : v -> mListener.onContactClick(contactUri));
+        if (mMetrics != null) {
+            mMetrics.record(METRIC_BIND, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(ContactsAdapter.ViewHolder holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty() || !payloads.contains(PAYLOAD_THUMBNAIL)) {
+            onBindViewHolder(holder, position);
+        } else if (holder.mDeferredThumbnailUri != null) {
+            bindThumbnail(holder, holder.mDeferredPhotoId, holder.mDeferredThumbnailUri);
+        }
+    }
+
+    @Override
+    public void onViewRecycled(ContactsAdapter.ViewHolder holder) {
+        mThumbnailLoader.cancel(holder.mAvator);
+    }
+
+    /**
+     * set thumbnail of row, a cached one is shown at once, otherwise placeholder is shown until
+     * the batch loading it arrives. In low quality mode loading is deferred until
+     * {@link #upgradeRows(int, int)}.
+     */
+    private void bindThumbnail(ContactsAdapter.ViewHolder holder, long photoId, String thumbnailUri) {
+        holder.mDeferredThumbnailUri = null;
+        // the view may still wait for thumbnail of the row it was bound to
+        mThumbnailLoader.cancel(holder.mAvator);
+        Bitmap thumbnail = thumbnailUri != null ? mThumbnailCache.get(thumbnailUri) : null;
+        if (thumbnail != null) {
+            holder.mAvator.setImageBitmap(thumbnail);
+            return;
+        }
+        holder.mAvator.setImageResource(R.mipmap.ic_launcher_round);
+        if (thumbnailUri == null) {
+            return;
+        }
+        if (mLowQuality) {
+            holder.mDeferredThumbnailUri = thumbnailUri;
+            holder.mDeferredPhotoId = photoId;
+            mDeferredThumbnailCount.incrementAndGet();
+        } else {
+            mThumbnailLoader.loadInto(holder.mAvator, photoId, thumbnailUri);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return mCursor != null ? mCursor.getCount() : 0;
+        if (mCursor == null) {
+            return 0;
+        }
+        return mFilterRows != null ? mFilterRows.length : mCursor.getCount();
     }
 
     @Override
     public Object[] getSections() {
-        return mContactsIndexer.getSections();
+        return mSectionIndexer.getSections();
     }
 
     @Override
     public int getPositionForSection(int sectionIndex) {
-        return mContactsIndexer.getPositionForSection(sectionIndex);
+        if (mFilterRows != null) {
+            return mFilterSectionTable.getPositionForSection(sectionIndex);
+        }
+        // table never touches cursor nor lazily binary searches it on main thread
+        if (mSectionTable != null) {
+            return mSectionTable.getPositionForSection(sectionIndex);
+        }
+        return mSectionIndexer.getPositionForSection(sectionIndex);
     }
 
     @Override
     public int getSectionForPosition(int position) {
-        return mContactsIndexer.getSectionForPosition(position);
+        if (mFilterRows != null) {
+            return mFilterSectionTable.getSectionForPosition(position);
+        }
+        if (mSectionTable != null) {
+            return mSectionTable.getSectionForPosition(position);
+        }
+        return mSectionIndexer.getSectionForPosition(position);
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
         TextView mContactTextView;
         ImageView mAvator;
+        // thumbnail skipped in low quality mode, null if thumbnail is shown
+        String mDeferredThumbnailUri;
+        long mDeferredPhotoId;
 
         ViewHolder(View itemView) {
             super(itemView);
@@ -95,11 +199,226 @@ public class ContactsAdapter extends RecyclerView.Adapter<ContactsAdapter.ViewHo
     }
 
     void swapCursor(Cursor c) {
+        swapCursor(c, null, null, null);
+    }
+
+    /**
+     * Swap cursor along with its indexes built in the background, for example, by
+     * {@link ContactsLoader}. Section table and prefix index which are absent or don't match
+     * cursor are built here. Scrub table is never built here, scrub mode is off without it.
+     *
+     * @param c            new cursor
+     * @param sectionTable section table of cursor, or null
+     * @param scrubTable   scrub table of cursor, or null
+     * @param prefixIndex  prefix index of cursor, or null
+     */
+    void swapCursor(Cursor c, SectionTable sectionTable, ScrubTable scrubTable, PrefixIndex prefixIndex) {
+        // rows of the previous cursor are stale
+        mFilterRows = null;
+        mFilterSectionTable = null;
+        mFilterScrubTable = null;
+        if (mCursor != c && mCursor instanceof PagedContactsCursor) {
+            ((PagedContactsCursor) mCursor).setOnPageLoadedListener(null);
+        }
         mCursor = c;
-        mContactsIndexer.setCursor(mCursor);
+        // a merged cursor of several sources indexes itself
+        if (mCursor instanceof SectionIndexer) {
+            mSectionIndexer = (SectionIndexer) mCursor;
+        } else {
+            mContactsIndexer.setCursor(mCursor);
+            mSectionIndexer = mContactsIndexer;
+        }
+        if (mCursor != null) {
+            if (mTracing) {
+                Trace.beginSection(TRACE_BUILD_INDEX);
+            }
+            long start = System.nanoTime();
+            int sectionCount = mSectionIndexer.getSections().length;
+            boolean prebuilt = mSectionIndexer == mContactsIndexer && sectionTable != null
+                    && sectionTable.getSectionCount() == sectionCount
+                    && sectionTable.getItemCount() == mCursor.getCount();
+            if (mCursor instanceof PagedContactsCursor) {
+                // built when the list was opened, building them here would load every page
+                PagedContactsCursor paged = (PagedContactsCursor) mCursor;
+                paged.setOnPageLoadedListener(this::notifyRowsChanged);
+                mSectionTable = paged.getSectionTable();
+                mScrubTable = paged.getScrubTable();
+                mPrefixIndex = paged.getPrefixIndex();
+            } else if (prebuilt) {
+                mSectionTable = sectionTable;
+                mScrubTable = scrubTable != null && scrubTable.getSectionTable() == sectionTable
+                        ? scrubTable : null;
+                mPrefixIndex = prefixIndex != null ? prefixIndex : buildPrefixIndex();
+            } else {
+                mSectionTable = SectionTable.from(mSectionIndexer::getPositionForSection,
+                        sectionCount, mCursor.getCount());
+                mScrubTable = null;
+                mPrefixIndex = buildPrefixIndex();
+            }
+            mIndexBuildNanos = System.nanoTime() - start;
+            if (mTracing) {
+                Trace.endSection();
+            }
+        } else {
+            mSectionTable = null;
+            mScrubTable = null;
+            mPrefixIndex = null;
+        }
         notifyDataSetChanged();
     }
 
+    /**
+     * Warm the row at position before it is bound: fill cursor window around it and queue its
+     * thumbnail into the next batch.
+     *
+     * @param position position of contact
+     */
+    void prefetch(int position) {
+        if (mLowQuality || mCursor == null || position < 0 || position >= getItemCount()
+                || !mCursor.moveToPosition(getRow(position))) {
+            return;
+        }
+        String thumbnailUri = mCursor.getString(ContactsQueryInterface.INDEX_PHOTO);
+        if (thumbnailUri != null && mThumbnailCache.get(thumbnailUri) == null) {
+            mThumbnailLoader.prefetch(mCursor.getLong(ContactsQueryInterface.INDEX_PHOTO_ID), thumbnailUri);
+        }
+    }
+
+    /**
+     * Show only the given rows of current cursor, or show all rows if rows is null.
+     * <p>
+     * Section table of the filtered rows is derived from the section table of cursor: start of
+     * a section is found by binary search within rows, so an update costs
+     * O(sections * log(results)) besides copying rows, never O(all contacts). Prefix index
+     * isn't available in filtered mode.
+     *
+     * @param rows cursor positions in ascending order
+     */
+    void setFilter(int[] rows) {
+        if (mCursor == null || rows == null) {
+            if (mFilterRows == null) {
+                return;
+            }
+            mFilterRows = null;
+            mFilterSectionTable = null;
+            mFilterScrubTable = null;
+        } else {
+            if (mTracing) {
+                Trace.beginSection(TRACE_BUILD_FILTER_INDEX);
+            }
+            long start = System.nanoTime();
+            mFilterRows = rows;
+            int sectionCount = mSectionTable.getSectionCount();
+            int[] starts = new int[sectionCount];
+            for (int section = 0; section < sectionCount; section++) {
+                starts[section] = lowerBound(rows, mSectionTable.getPositionForSection(section));
+            }
+            mFilterSectionTable = new SectionTable(starts, rows.length);
+            // scrub mode is for long lists only, like the unfiltered list
+            mFilterScrubTable = rows.length >= ContactsLoader.SCRUB_THRESHOLD
+                    ? buildScrubTable(mFilterSectionTable) : null;
+            mFilterBuildNanos = System.nanoTime() - start;
+            if (mTracing) {
+                Trace.endSection();
+            }
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @return whether only part of rows are shown
+     */
+    boolean isFiltered() {
+        return mFilterRows != null;
+    }
+
+    /**
+     * rebind shown rows within [firstRow, firstRow + count), for example, placeholders of a page
+     * which has been loaded
+     *
+     * @param firstRow the first cursor row
+     * @param count    count of rows
+     */
+    private void notifyRowsChanged(int firstRow, int count) {
+        int from = firstRow;
+        int to = firstRow + count;
+        if (mFilterRows != null) {
+            from = lowerBound(mFilterRows, from);
+            to = lowerBound(mFilterRows, to);
+        }
+        if (to > from) {
+            notifyItemRangeChanged(from, to - from);
+        }
+    }
+
+    /**
+     * map adapter position to cursor row
+     */
+    private int getRow(int position) {
+        return mFilterRows != null ? mFilterRows[position] : position;
+    }
+
+    /**
+     * find index of the first row not less than position
+     */
+    private static int lowerBound(int[] rows, int position) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get section table of shown rows, which is built once per cursor or filter.
+     *
+     * @return section table, or null if there is no cursor.
+     */
+    SectionTable getSectionTable() {
+        return mFilterRows != null ? mFilterSectionTable : mSectionTable;
+    }
+
+    /**
+     * Get scrub table of shown rows, which is built once per cursor or filter.
+     *
+     * @return scrub table, or null if there is no cursor or shown rows are fewer than
+     * {@link ContactsLoader#SCRUB_THRESHOLD}.
+     */
+    ScrubTable getScrubTable() {
+        return mFilterRows != null ? mFilterScrubTable : mScrubTable;
+    }
+
+    private ScrubTable buildScrubTable(SectionTable sectionTable) {
+        return new ScrubTable(sectionTable, ScrubTable.DEFAULT_STEPS, position -> {
+            mCursor.moveToPosition(getRow(position));
+            return PrefixIndex.normalize(mCursor.getString(ContactsQueryInterface.INDEX_NAME),
+                    PrefixIndex.DEFAULT_PREFIX_LENGTH);
+        });
+    }
+
+    /**
+     * Get prefix index of current cursor, which is built once per cursor.
+     *
+     * @return prefix index, or null if there is no cursor or rows are filtered.
+     */
+    PrefixIndex getPrefixIndex() {
+        return mFilterRows != null ? null : mPrefixIndex;
+    }
+
+    private PrefixIndex buildPrefixIndex() {
+        PrefixIndex.Builder builder = new PrefixIndex.Builder(mSectionTable);
+        for (mCursor.moveToPosition(-1); mCursor.moveToNext(); ) {
+            builder.add(mCursor.getString(ContactsQueryInterface.INDEX_NAME));
+        }
+        return builder.build();
+    }
+
     public interface onContactClickListener {
         void onContactClick(Uri uri);
     }
@@ -107,4 +426,82 @@ public class ContactsAdapter extends RecyclerView.Adapter<ContactsAdapter.ViewHo
     public void setOnContactClickListener(onContactClickListener listener) {
         mListener = listener;
     }
+
+    /**
+     * set metrics, which receive duration of onBindViewHolder
+     *
+     * @param metrics metrics, or null to disable metrics
+     */
+    void setMetrics(IndexerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * Switch low quality mode. While it's on, thumbnails which are not in memory are not decoded
+     * and placeholders are shown instead, and prefetch issues no provider I/O.
+     *
+     * @param lowQuality true to skip thumbnail decodes
+     */
+    void setLowQuality(boolean lowQuality) {
+        mLowQuality = lowQuality;
+    }
+
+    boolean isLowQuality() {
+        return mLowQuality;
+    }
+
+    /**
+     * decode thumbnails deferred in low quality mode for rows within [first, last], other rows
+     * are upgraded when they are bound again
+     *
+     * @param first the first position, inclusive
+     * @param last  the last position, inclusive
+     */
+    void upgradeRows(int first, int last) {
+        if (first < 0 || last < first) {
+            return;
+        }
+        notifyItemRangeChanged(first, last - first + 1, PAYLOAD_THUMBNAIL);
+    }
+
+    /**
+     * print size of data set, build time of index, count of binds, thumbnail cache and indexer
+     *
+     * @param writer writer to print to
+     * @param prefix prefix of every line
+     */
+    void dump(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println("ContactsAdapter:");
+        String innerPrefix = prefix + "  ";
+        writer.print(innerPrefix);
+        writer.println(String.format(Locale.US, "items=%d rows=%d filtered=%s sections=%d",
+                getItemCount(), mCursor == null ? 0 : mCursor.getCount(), isFiltered(),
+                mSectionTable == null ? 0 : mSectionTable.getSectionCount()));
+        writer.print(innerPrefix);
+        writer.println(String.format(Locale.US,
+                "indexBuild=%.2fms filterBuild=%.2fms binds=%d lowQuality=%s deferredThumbnails=%d",
+                mIndexBuildNanos / 1e6f, mFilterBuildNanos / 1e6f, mBindCount.get(), mLowQuality,
+                mDeferredThumbnailCount.get()));
+        mThumbnailCache.dump(writer, innerPrefix);
+        mThumbnailLoader.dump(writer, innerPrefix);
+        if (mCursor instanceof PagedContactsCursor) {
+            ((PagedContactsCursor) mCursor).dump(writer, innerPrefix);
+        }
+        if (mSectionIndexer == mContactsIndexer) {
+            mContactsIndexer.dump(writer, innerPrefix);
+        } else {
+            writer.print(innerPrefix);
+            writer.println("section indexer: " + mSectionIndexer.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * emit trace sections around building index, which are shown by systrace and Perfetto
+     *
+     * @param enabled true to enable tracing, it's disabled by default
+     */
+    void setTracing(boolean enabled) {
+        mTracing = enabled;
+    }
 }
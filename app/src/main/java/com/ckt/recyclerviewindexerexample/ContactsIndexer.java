@@ -3,6 +3,11 @@ package com.ckt.recyclerviewindexerexample;
 import android.database.Cursor;
 import android.widget.AlphabetIndexer;
 
+import com.ckt.recyclerviewindexer.SectionClassifier;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * A helper class for adapters that implement the SectionIndexer interface based on {@link android.widget.SectionIndexer}.
  * <p>
@@ -19,7 +24,11 @@ public class ContactsIndexer extends AlphabetIndexer {
 
     public static final String DEFAULT_INDEXER_CHARACTERS = "%ABCDEFGHIJKLMNOPQRSTUVWXYZ#";
     private String mContactsIndexer;
-    private int mAlphabetLength;
+    // maps the first character of sorted key to section without touching collator
+    private SectionClassifier mClassifier;
+    // count of lookups, reported by dump
+    private final AtomicLong mSectionLookupCount = new AtomicLong();
+    private final AtomicLong mPositionLookupCount = new AtomicLong();
 
     /**
      * Constructs the indexer.
@@ -46,41 +55,43 @@ public class ContactsIndexer extends AlphabetIndexer {
     public ContactsIndexer(Cursor cursor, int sortedColumnIndex, CharSequence alphabet) {
         super(cursor, sortedColumnIndex, alphabet);
         mContactsIndexer = (String) alphabet;
-        mAlphabetLength = alphabet.length();
+        mClassifier = new SectionClassifier(alphabet);
     }
 
 
     @Override
     public int getSectionForPosition(int position) {
+        mSectionLookupCount.incrementAndGet();
         int savedCursorPos = mDataCursor.getPosition();
         mDataCursor.moveToPosition(position);
         String sortedKey = mDataCursor.getString(mColumnIndex);
         mDataCursor.moveToPosition(savedCursorPos);
+        return mClassifier.getSectionForKey(sortedKey);
+    }
 
-        if (sortedKey.length() != 0) {
-            char firstChar = sortedKey.charAt(0);
-            if (firstChar >= '0' && firstChar <= '9') {
-                return mContactsIndexer.length() - 1;
-            }
-            if ((firstChar >= 'A' && firstChar <= 'Z') ||
-                    (firstChar >= 'a' && firstChar <= 'z')) {
-                // Linear search, as there are only a few items in the section index
-                // Could speed this up later if it actually gets used.
-                for (int i = 1; i < mAlphabetLength - 1; i++) {
-                    char letter = mContactsIndexer.charAt(i);
-                    String targetLetter = Character.toString(letter);
-                    if (compare(Character.toString(firstChar), targetLetter) == 0) {
-                        return i;
-                    }
-                }
-            }
-        }
-        return 0;
+    @Override
+    public int getPositionForSection(int sectionIndex) {
+        mPositionLookupCount.incrementAndGet();
+        return super.getPositionForSection(sectionIndex);
     }
 
     public String getContactsIndexer() {
         return mContactsIndexer;
     }
+
+    /**
+     * print alphabet and count of lookups
+     *
+     * @param writer writer to print to
+     * @param prefix prefix of every line
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println("ContactsIndexer: alphabet=" + mContactsIndexer
+                + " sections=" + mClassifier.getSectionCount()
+                + " sectionLookups=" + mSectionLookupCount.get()
+                + " positionLookups=" + mPositionLookupCount.get());
+    }
 }
 
 
@@ -0,0 +1,293 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Trace;
+import android.provider.BaseColumns;
+import android.provider.ContactsContract;
+import android.support.v4.content.AsyncTaskLoader;
+import android.support.v4.content.ContentResolverCompat;
+import android.support.v4.os.CancellationSignal;
+import android.support.v4.os.OperationCanceledException;
+
+import com.ckt.recyclerviewindexer.PrefixIndex;
+import com.ckt.recyclerviewindexer.ScrubTable;
+import com.ckt.recyclerviewindexer.SectionClassifier;
+import com.ckt.recyclerviewindexer.SectionTable;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Loader of contacts, which delivers the cursor along with all its indexes as one immutable
+ * {@link ContactsSnapshot}. Every index is built in the background thread, so main thread swaps
+ * cursor and indexes by a single reference, and keeps using the previous snapshot until then.
+ * <p>
+ * Section table is built by classifying chunks of rows in parallel, scrub table, prefix index,
+ * search index and dial pad index from the same arrays of names. So neither scrubbing nor
+ * searching queries provider or blocks main thread, and a recreated screen rebinds without
+ * building anything. Scrub table is built only for a list of at least {@link #SCRUB_THRESHOLD}
+ * contacts, shorter lists jump to sections by {@link SectionSmoothScroller}. Dial pad index is updated incrementally from the previous snapshot. The
+ * build stops as soon as the load is canceled, for example, by a newer content change.
+ * <p>
+ * A list of at least {@link #PAGING_THRESHOLD} contacts is delivered as a
+ * {@link PagedContactsCursor}, which keeps only a window of rows in memory. The count is asked
+ * first, so such a list is never loaded with all columns. Search indexes are not built for it,
+ * they would hold every name.
+ * <p>
+ * Cursors are owned by the loader, like {@link android.support.v4.content.CursorLoader} does,
+ * the cursor of a snapshot is closed once a newer snapshot is delivered or the loader is reset.
+ *
+ * @author David Chow
+ */
+public class ContactsLoader extends AsyncTaskLoader<ContactsSnapshot> {
+    private final ForceLoadContentObserver mObserver = new ForceLoadContentObserver();
+    private final Uri mUri = ContactsContract.Contacts.CONTENT_URI;
+    // the latest delivered snapshot, touched on main thread only
+    private ContactsSnapshot mSnapshot;
+    private CancellationSignal mCancellationSignal;
+    // base of the incremental dial pad index build, it's dropped when memory gets short
+    private volatile DialpadIndex mDialpadBase;
+    // names of trace sections, they are constants so that tracing never builds strings
+    private static final String TRACE_BUILD_SECTION_TABLE = "ContactsLoader#buildSectionTable";
+    private static final String TRACE_BUILD_SCRUB_TABLE = "ContactsLoader#buildScrubTable";
+    private static final String TRACE_BUILD_PREFIX_INDEX = "ContactsLoader#buildPrefixIndex";
+    private static final String TRACE_BUILD_SEARCH_INDEX = "ContactsLoader#buildSearchIndex";
+    private static final String TRACE_BUILD_DIALPAD_INDEX = "ContactsLoader#buildDialpadIndex";
+    // whether to emit trace sections
+    private boolean mTracing;
+
+    // count of contacts from which the list is paged
+    static final int PAGING_THRESHOLD = 100000;
+    // count of rows from which scrub mode is on, a section of such a list spans many screens.
+    // Shorter lists have no scrub table, so indexer jumps to sections by the smooth scroller
+    static final int SCRUB_THRESHOLD = 10000;
+
+    // shared by all loaders, one core is left to main thread
+    private static final ForkJoinPool sIndexPool =
+            new ForkJoinPool(Math.max(Runtime.getRuntime().availableProcessors() - 1, 1));
+    private static final SectionClassifier sClassifier =
+            new SectionClassifier(ContactsIndexer.DEFAULT_INDEXER_CHARACTERS);
+
+    public ContactsLoader(Context context) {
+        super(context);
+    }
+
+    @Override
+    public ContactsSnapshot loadInBackground() {
+        synchronized (this) {
+            if (isLoadInBackgroundCanceled()) {
+                throw new OperationCanceledException();
+            }
+            mCancellationSignal = new CancellationSignal();
+        }
+        try {
+            return loadSnapshot();
+        } finally {
+            synchronized (this) {
+                mCancellationSignal = null;
+            }
+        }
+    }
+
+    private ContactsSnapshot loadSnapshot() {
+        // huge list is never queried with all columns, only its count is asked first
+        if (queryCount() >= PAGING_THRESHOLD) {
+            PagedContactsCursor paged = PagedContactsCursor.open(getContext().getContentResolver(),
+                    mUri, ContactsIndexer.DEFAULT_INDEXER_CHARACTERS);
+            if (paged != null) {
+                paged.registerContentObserver(mObserver);
+                return new ContactsSnapshot(paged, paged.getSectionTable(), paged.getScrubTable(),
+                        paged.getPrefixIndex(), null, null);
+            }
+        }
+        Cursor cursor = ContentResolverCompat.query(getContext().getContentResolver(), mUri,
+                ContactsQueryInterface.PROJECTION, null, null,
+                // same order as pages of a paged cursor
+                PagedContactsCursor.SORT_ORDER, mCancellationSignal);
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            // fill cursor window, and read it once, every index is built from the arrays
+            long[] ids = new long[cursor.getCount()];
+            cursor.registerContentObserver(mObserver);
+            String[] names = new String[ids.length];
+            for (int i = 0; cursor.moveToPosition(i); i++) {
+                ids[i] = cursor.getLong(ContactsQueryInterface.INDEX_ID);
+                names[i] = cursor.getString(ContactsQueryInterface.INDEX_NAME);
+            }
+            cursor.moveToPosition(-1);
+
+            throwIfCanceled();
+            beginTraceSection(TRACE_BUILD_SECTION_TABLE);
+            SectionTable sectionTable = sClassifier.buildTable(names, sIndexPool);
+            endTraceSection();
+            throwIfCanceled();
+            ScrubTable scrubTable = null;
+            if (names.length >= SCRUB_THRESHOLD) {
+                beginTraceSection(TRACE_BUILD_SCRUB_TABLE);
+                scrubTable = buildScrubTable(sectionTable, names);
+                endTraceSection();
+            }
+            throwIfCanceled();
+            beginTraceSection(TRACE_BUILD_PREFIX_INDEX);
+            PrefixIndex.Builder builder = new PrefixIndex.Builder(sectionTable);
+            for (String name : names) {
+                builder.add(name);
+            }
+            PrefixIndex prefixIndex = builder.build();
+            endTraceSection();
+            throwIfCanceled();
+            beginTraceSection(TRACE_BUILD_SEARCH_INDEX);
+            ContactsSearchIndex searchIndex = ContactsSearchIndex.build(names);
+            endTraceSection();
+            throwIfCanceled();
+            beginTraceSection(TRACE_BUILD_DIALPAD_INDEX);
+            DialpadIndex dialpadIndex = DialpadIndex.build(ids, names, mDialpadBase);
+            endTraceSection();
+            mDialpadBase = dialpadIndex;
+            return new ContactsSnapshot(cursor, sectionTable, scrubTable, prefixIndex, searchIndex,
+                    dialpadIndex);
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    /**
+     * build scrub table of sorted names, whose secondary labels are normalized prefixes of names
+     *
+     * @param sectionTable section table of names
+     * @param names        sorted names
+     * @return scrub table
+     */
+    static ScrubTable buildScrubTable(SectionTable sectionTable, String[] names) {
+        return new ScrubTable(sectionTable, ScrubTable.DEFAULT_STEPS,
+                position -> PrefixIndex.normalize(names[position], PrefixIndex.DEFAULT_PREFIX_LENGTH));
+    }
+
+    private void beginTraceSection(String name) {
+        if (mTracing) {
+            Trace.beginSection(name);
+        }
+    }
+
+    private void endTraceSection() {
+        if (mTracing) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * emit trace sections around building every index, which are shown by systrace and Perfetto.
+     * It should be called before the first load.
+     *
+     * @param enabled true to enable tracing, it's disabled by default
+     */
+    void setTracing(boolean enabled) {
+        mTracing = enabled;
+    }
+
+    /**
+     * stop building indexes of a canceled load, its snapshot would never be delivered
+     */
+    private void throwIfCanceled() {
+        if (isLoadInBackgroundCanceled()) {
+            throw new OperationCanceledException();
+        }
+    }
+
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        synchronized (this) {
+            if (mCancellationSignal != null) {
+                mCancellationSignal.cancel();
+            }
+        }
+    }
+
+    /**
+     * count contacts by the count column of provider, without reading any row
+     *
+     * @return count of contacts, or -1 if provider can't count them
+     */
+    private int queryCount() {
+        Cursor cursor = null;
+        try {
+            cursor = getContext().getContentResolver().query(mUri,
+                    new String[]{BaseColumns._COUNT}, null, null, null);
+            return cursor != null && cursor.moveToFirst() ? cursor.getInt(0) : -1;
+        } catch (RuntimeException e) {
+            return -1;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    @Override
+    public void deliverResult(ContactsSnapshot snapshot) {
+        if (isReset()) {
+            // an async query came in while the loader is stopped
+            if (snapshot != null) {
+                snapshot.close();
+            }
+            return;
+        }
+        ContactsSnapshot old = mSnapshot;
+        mSnapshot = snapshot;
+        if (isStarted()) {
+            super.deliverResult(snapshot);
+        }
+        // a snapshot without search indexes shares cursor with the one it's made of
+        if (old != null && (snapshot == null || old.getCursor() != snapshot.getCursor())) {
+            old.close();
+        }
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (mSnapshot != null) {
+            deliverResult(mSnapshot);
+        }
+        if (takeContentChanged() || mSnapshot == null) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    public void onCanceled(ContactsSnapshot snapshot) {
+        if (snapshot != null && (mSnapshot == null || snapshot.getCursor() != mSnapshot.getCursor())) {
+            snapshot.close();
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        if (mSnapshot != null) {
+            mSnapshot.close();
+        }
+        mSnapshot = null;
+    }
+
+    /**
+     * drop search index and dial pad index of the delivered snapshot when memory gets short, they
+     * are built from scratch by the next load. It should be called on main thread.
+     */
+    public void trimSearchIndexes() {
+        mDialpadBase = null;
+        if (mSnapshot != null) {
+            mSnapshot = mSnapshot.withoutSearchIndexes();
+        }
+    }
+}
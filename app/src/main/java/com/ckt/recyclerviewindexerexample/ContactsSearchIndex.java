@@ -0,0 +1,356 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * In-memory search index over contacts' names, built once per data snapshot off the main thread.
+ * <p>
+ * It combines a sorted array of name tokens, used to find token prefixes by binary search, with
+ * trigram postings, used to find infix matches. Results are adapter positions in list order, so
+ * the filtered list stays grouped by section without sorting, and the best match by name prefix,
+ * then token prefix, then infix is pointed out. A query extending the previous one only filters
+ * the previous result set, so each keystroke costs O(results).
+ *
+ * @author David Chow
+ */
+public class ContactsSearchIndex {
+    // rank of a match, the smaller the better
+    private static final int RANK_NAME_PREFIX = 0;
+    private static final int RANK_TOKEN_PREFIX = 1;
+    private static final int RANK_INFIX = 2;
+    private static final int NO_MATCH = -1;
+
+    // trigram is the shortest infix to be searched
+    private static final int TRIGRAM_LENGTH = 3;
+
+    // lower case name of each position
+    private String[] mNames;
+    // name tokens sorted alphabetically, and the position each one belongs to
+    private String[] mTokens;
+    private int[] mTokenPositions;
+    // distinct trigrams sorted ascending, ascending positions of names containing trigram i are
+    // mPostings[mPostingStarts[i]] until mPostings[mPostingStarts[i + 1]]
+    private long[] mTrigrams;
+    private int[] mPostingStarts;
+    private int[] mPostings;
+
+    private ContactsSearchIndex(String[] names, String[] tokens, int[] tokenPositions,
+                                long[] trigrams, int[] postingStarts, int[] postings) {
+        mNames = names;
+        mTokens = tokens;
+        mTokenPositions = tokenPositions;
+        mTrigrams = trigrams;
+        mPostingStarts = postingStarts;
+        mPostings = postings;
+    }
+
+    /**
+     * Result of a search, which is passed back to narrow the next search.
+     */
+    public static class Result {
+        final String mQuery;
+        final int[] mPositions;
+        final int mBestIndex;
+
+        Result(String query, int[] positions, int bestIndex) {
+            mQuery = query;
+            mPositions = positions;
+            mBestIndex = bestIndex;
+        }
+
+        /**
+         * @return matched adapter positions in ascending order
+         */
+        public int[] getPositions() {
+            return mPositions;
+        }
+
+        /**
+         * @return index of the best ranked match within positions, the first one of ties, or -1
+         * if nothing matched
+         */
+        public int getBestIndex() {
+            return mBestIndex;
+        }
+    }
+
+    /**
+     * build index from name column of cursor, it should be called off the main thread
+     *
+     * @param cursor      cursor of contacts
+     * @param columnIndex column of name
+     * @return search index
+     */
+    public static ContactsSearchIndex build(Cursor cursor, int columnIndex) {
+        String[] names = new String[cursor.getCount()];
+        for (int i = 0; cursor.moveToPosition(i); i++) {
+            names[i] = cursor.getString(columnIndex);
+        }
+        cursor.moveToPosition(-1);
+        return build(names);
+    }
+
+    /**
+     * build index from names
+     *
+     * @param names name of each adapter position
+     * @return search index
+     */
+    public static ContactsSearchIndex build(String[] names) {
+        String[] lowerNames = new String[names.length];
+        List<String> tokens = new ArrayList<>(names.length * 2);
+        List<Integer> tokenPositions = new ArrayList<>(names.length * 2);
+        int trigramCount = 0;
+
+        for (int position = 0; position < names.length; position++) {
+            String name = names[position] == null ? "" : names[position].toLowerCase(Locale.getDefault());
+            lowerNames[position] = name;
+
+            // tokens
+            int start = -1;
+            for (int i = 0; i <= name.length(); i++) {
+                boolean letterOrDigit = i < name.length() && Character.isLetterOrDigit(name.charAt(i));
+                if (letterOrDigit && start < 0) {
+                    start = i;
+                } else if (!letterOrDigit && start >= 0) {
+                    tokens.add(name.substring(start, i));
+                    tokenPositions.add(position);
+                    start = -1;
+                }
+            }
+            trigramCount += Math.max(name.length() - TRIGRAM_LENGTH + 1, 0);
+        }
+
+        // trigrams are packed with positions and sorted, so postings are grouped by trigram
+        long[] packed = new long[trigramCount];
+        int count = 0;
+        for (int position = 0; position < lowerNames.length; position++) {
+            String name = lowerNames[position];
+            for (int i = 0; i + TRIGRAM_LENGTH <= name.length(); i++) {
+                packed[count++] = (trigram(name, i) << 32) | position;
+            }
+        }
+        Arrays.sort(packed);
+        long[] trigrams = new long[count];
+        int[] postingStarts = new int[count + 1];
+        int[] postings = new int[count];
+        int trigramIndex = -1;
+        int postingCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && packed[i] == packed[i - 1]) {
+                // the same trigram appears twice in a name
+                continue;
+            }
+            long trigram = packed[i] >>> 32;
+            if (trigramIndex < 0 || trigrams[trigramIndex] != trigram) {
+                trigrams[++trigramIndex] = trigram;
+                postingStarts[trigramIndex] = postingCount;
+            }
+            postings[postingCount++] = (int) packed[i];
+        }
+        postingStarts[trigramIndex + 1] = postingCount;
+
+        // sort tokens along with their positions
+        Integer[] order = new Integer[tokens.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> tokens.get(a).compareTo(tokens.get(b)));
+        String[] sortedTokens = new String[order.length];
+        int[] sortedPositions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedTokens[i] = tokens.get(order[i]);
+            sortedPositions[i] = tokenPositions.get(order[i]);
+        }
+
+        return new ContactsSearchIndex(lowerNames, sortedTokens, sortedPositions,
+                Arrays.copyOf(trigrams, trigramIndex + 1),
+                Arrays.copyOf(postingStarts, trigramIndex + 2),
+                Arrays.copyOf(postings, postingCount));
+    }
+
+    /**
+     * key of trigram starting at index of s. Each character is folded into 10 bits so key packs
+     * with a position into a long, colliding trigrams only add candidates which are verified later.
+     */
+    private static long trigram(String s, int start) {
+        return (fold(s.charAt(start)) << 20) | (fold(s.charAt(start + 1)) << 10) | fold(s.charAt(start + 2));
+    }
+
+    private static long fold(char c) {
+        return (c ^ (c >>> 10)) & 0x3FF;
+    }
+
+    /**
+     * estimate bytes held by index, each string is counted as 40 bytes of headers plus its chars
+     *
+     * @return bytes
+     */
+    long getByteCount() {
+        long bytes = 8L * mTrigrams.length
+                + 4L * (mTokenPositions.length + mPostingStarts.length + mPostings.length);
+        for (String name : mNames) {
+            bytes += 40 + 2 * name.length();
+        }
+        for (String token : mTokens) {
+            bytes += 40 + 2 * token.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * search contacts whose name matches query
+     *
+     * @param query    query typed by user
+     * @param previous result of the previous query, it's narrowed if query extends its query
+     * @return ranked result, or null if query is empty
+     */
+    public Result search(String query, Result previous) {
+        if (query == null || query.trim().isEmpty()) {
+            return null;
+        }
+        query = query.trim().toLowerCase(Locale.getDefault());
+
+        int[] candidates;
+        if (previous != null && query.startsWith(previous.mQuery)
+                && (previous.mQuery.length() >= TRIGRAM_LENGTH || query.length() < TRIGRAM_LENGTH)) {
+            // incremental narrowing, every match of query also matches the previous query. Short
+            // query only matches prefixes, so it can't be narrowed into a query matching infixes.
+            candidates = previous.mPositions;
+        } else {
+            candidates = findCandidates(query);
+        }
+
+        // candidates are ascending, so are matches filtered from them
+        int[] positions = new int[candidates.length];
+        int count = 0;
+        int bestIndex = -1;
+        int bestRank = NO_MATCH;
+        for (int position : candidates) {
+            int rank = rank(mNames[position], query);
+            if (rank == NO_MATCH) {
+                continue;
+            }
+            if (bestRank == NO_MATCH || rank < bestRank) {
+                bestRank = rank;
+                bestIndex = count;
+            }
+            positions[count++] = position;
+        }
+        return new Result(query, count == positions.length ? positions : Arrays.copyOf(positions, count),
+                bestIndex);
+    }
+
+    /**
+     * find positions which may match query, they are verified by rank later
+     */
+    private int[] findCandidates(String query) {
+        // token prefix matches
+        int low = lowerBound(query);
+        int high = low;
+        while (high < mTokens.length && mTokens[high].startsWith(query)) {
+            high++;
+        }
+        int[] candidates = new int[high - low];
+        for (int i = low; i < high; i++) {
+            candidates[i - low] = mTokenPositions[i];
+        }
+
+        // infix matches
+        if (query.length() >= TRIGRAM_LENGTH) {
+            int[] infix = intersectTrigrams(query);
+            int[] merged = Arrays.copyOf(candidates, candidates.length + infix.length);
+            System.arraycopy(infix, 0, merged, candidates.length, infix.length);
+            candidates = merged;
+        }
+
+        // drop duplicates
+        Arrays.sort(candidates);
+        int count = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (i == 0 || candidates[i] != candidates[i - 1]) {
+                candidates[count++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * intersect postings of every trigram of query, starting with the shortest one
+     */
+    private int[] intersectTrigrams(String query) {
+        int trigramCount = query.length() - TRIGRAM_LENGTH + 1;
+        int[] indexes = new int[trigramCount];
+        int shortest = 0;
+        for (int i = 0; i < trigramCount; i++) {
+            indexes[i] = Arrays.binarySearch(mTrigrams, trigram(query, i));
+            if (indexes[i] < 0) {
+                return new int[0];
+            }
+            if (getPostingCount(indexes[i]) < getPostingCount(indexes[shortest])) {
+                shortest = i;
+            }
+        }
+        int from = mPostingStarts[indexes[shortest]];
+        int to = mPostingStarts[indexes[shortest] + 1];
+        int[] result = new int[to - from];
+        int count = 0;
+        outer:
+        for (int p = from; p < to; p++) {
+            int position = mPostings[p];
+            for (int index : indexes) {
+                if (Arrays.binarySearch(mPostings, mPostingStarts[index], mPostingStarts[index + 1], position) < 0) {
+                    continue outer;
+                }
+            }
+            result[count++] = position;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private int getPostingCount(int trigramIndex) {
+        return mPostingStarts[trigramIndex + 1] - mPostingStarts[trigramIndex];
+    }
+
+    private int lowerBound(String query) {
+        int low = 0;
+        int high = mTokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mTokens[mid].compareTo(query) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * rank how lower case name matches query
+     *
+     * @return rank, or NO_MATCH
+     */
+    private static int rank(String name, String query) {
+        if (name.startsWith(query)) {
+            return RANK_NAME_PREFIX;
+        }
+        int index = name.indexOf(query);
+        if (index < 0) {
+            return NO_MATCH;
+        }
+        int rank = RANK_INFIX;
+        for (; index >= 0; index = name.indexOf(query, index + 1)) {
+            if (!Character.isLetterOrDigit(name.charAt(index - 1))) {
+                rank = RANK_TOKEN_PREFIX;
+                break;
+            }
+        }
+        return rank;
+    }
+}
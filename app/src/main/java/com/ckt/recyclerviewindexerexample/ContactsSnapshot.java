@@ -0,0 +1,105 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.database.Cursor;
+
+import com.ckt.recyclerviewindexer.PrefixIndex;
+import com.ckt.recyclerviewindexer.ScrubTable;
+import com.ckt.recyclerviewindexer.SectionTable;
+
+/**
+ * Immutable snapshot of contacts delivered by {@link ContactsLoader}: the cursor along with every
+ * index built from it in the background. It's published and swapped in as a single reference, so
+ * main thread never sees a cursor with indexes of another load.
+ * <p>
+ * Search indexes may be dropped when memory gets short, which makes a new snapshot sharing the
+ * cursor and the other indexes, the snapshot itself is never changed.
+ *
+ * @author David Chow
+ */
+public final class ContactsSnapshot {
+    private final Cursor mCursor;
+    private final SectionTable mSectionTable;
+    private final ScrubTable mScrubTable;
+    private final PrefixIndex mPrefixIndex;
+    private final ContactsSearchIndex mSearchIndex;
+    private final DialpadIndex mDialpadIndex;
+
+    /**
+     * @param cursor       cursor of contacts
+     * @param sectionTable section table of cursor
+     * @param scrubTable   scrub table of cursor
+     * @param prefixIndex  prefix index of cursor
+     * @param searchIndex  search index of cursor, or null if it's not built, for example, for a
+     *                     paged cursor
+     * @param dialpadIndex dial pad index of cursor, or null if it's not built
+     */
+    ContactsSnapshot(Cursor cursor, SectionTable sectionTable, ScrubTable scrubTable,
+                     PrefixIndex prefixIndex, ContactsSearchIndex searchIndex,
+                     DialpadIndex dialpadIndex) {
+        mCursor = cursor;
+        mSectionTable = sectionTable;
+        mScrubTable = scrubTable;
+        mPrefixIndex = prefixIndex;
+        mSearchIndex = searchIndex;
+        mDialpadIndex = dialpadIndex;
+    }
+
+    Cursor getCursor() {
+        return mCursor;
+    }
+
+    SectionTable getSectionTable() {
+        return mSectionTable;
+    }
+
+    ScrubTable getScrubTable() {
+        return mScrubTable;
+    }
+
+    PrefixIndex getPrefixIndex() {
+        return mPrefixIndex;
+    }
+
+    ContactsSearchIndex getSearchIndex() {
+        return mSearchIndex;
+    }
+
+    DialpadIndex getDialpadIndex() {
+        return mDialpadIndex;
+    }
+
+    /**
+     * @return whether the snapshot is a paged list, which has no search indexes at all
+     */
+    boolean isPaged() {
+        return mCursor instanceof PagedContactsCursor;
+    }
+
+    /**
+     * @return estimated bytes of search index and dial pad index
+     */
+    long getSearchIndexByteCount() {
+        return (mSearchIndex != null ? mSearchIndex.getByteCount() : 0)
+                + (mDialpadIndex != null ? mDialpadIndex.getByteCount() : 0);
+    }
+
+    /**
+     * @return snapshot of the same cursor without search index and dial pad index, this one if
+     * it has none of them
+     */
+    ContactsSnapshot withoutSearchIndexes() {
+        if (mSearchIndex == null && mDialpadIndex == null) {
+            return this;
+        }
+        return new ContactsSnapshot(mCursor, mSectionTable, mScrubTable, mPrefixIndex, null, null);
+    }
+
+    /**
+     * close cursor of the snapshot, it's called by the loader which owns it
+     */
+    void close() {
+        if (mCursor != null && !mCursor.isClosed()) {
+            mCursor.close();
+        }
+    }
+}
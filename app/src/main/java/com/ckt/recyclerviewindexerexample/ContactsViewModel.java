@@ -0,0 +1,71 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.arch.lifecycle.ViewModel;
+import android.content.Context;
+
+/**
+ * Holder of the loaded contacts snapshot and its indexes, which is retained across configuration
+ * changes, for example, rotation and multi-window resizing. The recreated screen rebinds from it
+ * at once, without waiting for the loader and without rebuilding any index.
+ * <p>
+ * Cursor is owned and closed by the loader, this holder only refers to it. Thumbnail cache is
+ * kept warm here too, it's bound to application context so it never leaks an activity.
+ *
+ * @author David Chow
+ */
+public class ContactsViewModel extends ViewModel {
+    private ContactsSnapshot mSnapshot;
+    private ThumbnailCache mThumbnailCache;
+
+    /**
+     * keep snapshot delivered by loader, cursor and indexes are replaced at once
+     *
+     * @param snapshot snapshot of contacts, or null to drop the snapshot
+     */
+    void setSnapshot(ContactsSnapshot snapshot) {
+        mSnapshot = snapshot;
+    }
+
+    /**
+     * @return the snapshot, or null if nothing has been loaded
+     */
+    ContactsSnapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * drop search index and dial pad index of the snapshot when memory gets short
+     *
+     * @return bytes freed, estimated
+     */
+    long trimSearchIndexes() {
+        if (mSnapshot == null) {
+            return 0;
+        }
+        long freed = mSnapshot.getSearchIndexByteCount();
+        mSnapshot = mSnapshot.withoutSearchIndexes();
+        return freed;
+    }
+
+    /**
+     * get thumbnail cache shared by every recreated adapter, it's created if absent
+     *
+     * @param context any context, only application context is kept
+     * @return thumbnail cache
+     */
+    ThumbnailCache getThumbnailCache(Context context) {
+        if (mThumbnailCache == null) {
+            mThumbnailCache = new ThumbnailCache(context);
+        }
+        return mThumbnailCache;
+    }
+
+    @Override
+    protected void onCleared() {
+        // the screen is finished for good, release memory of thumbnails at once
+        if (mThumbnailCache != null) {
+            mThumbnailCache.evictAll();
+        }
+        setSnapshot(null);
+    }
+}
@@ -0,0 +1,374 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.database.Cursor;
+
+import java.util.Arrays;
+
+/**
+ * Dial pad (T9) index over contacts' names, for example, "726" finds "Sam" and "Pam".
+ * <p>
+ * Every name token is mapped to its key pad digits, and all tokens are kept sorted by digits in
+ * primitive arrays with their rows. Tokens starting with typed digits are a contiguous range,
+ * which is found by binary search and narrowed within the previous range as each digit is typed.
+ * <p>
+ * The index is built once per data snapshot. When contacts change, tokens of contacts whose name
+ * equals the name in the previous snapshot are taken over from the previous index in their sorted
+ * order, only tokens of new or renamed contacts are converted and sorted, and then both runs are
+ * merged. Contacts are matched by id through an open addressing table, nothing is boxed.
+ *
+ * @author David Chow
+ */
+public class DialpadIndex {
+    // key pad digit of 'a' to 'z'
+    private static final String KEYPAD = "22233344455566677778889999";
+
+    // digits of all tokens, token i is mDigits[mTokenStarts[i]] until mDigits[mTokenStarts[i + 1]]
+    private char[] mDigits;
+    private int[] mTokenStarts;
+    // row and contact id of each token
+    private int[] mTokenRows;
+    private long[] mTokenIds;
+    // name of each row, shared with search index built from the same snapshot
+    private String[] mNames;
+
+    private DialpadIndex(char[] digits, int[] tokenStarts, int[] tokenRows, long[] tokenIds,
+                         String[] names) {
+        mDigits = digits;
+        mTokenStarts = tokenStarts;
+        mTokenRows = tokenRows;
+        mTokenIds = tokenIds;
+        mNames = names;
+    }
+
+    /**
+     * Result of a search, which is passed back to narrow the next search.
+     */
+    public static class Result {
+        final String mQuery;
+        // range of matched tokens
+        final int mFrom, mTo;
+        final int[] mRows;
+
+        Result(String query, int from, int to, int[] rows) {
+            mQuery = query;
+            mFrom = from;
+            mTo = to;
+            mRows = rows;
+        }
+
+        /**
+         * @return matched rows in list order
+         */
+        public int[] getRows() {
+            return mRows;
+        }
+    }
+
+    /**
+     * build index from cursor of contacts, it should be called off the main thread
+     *
+     * @param cursor      cursor of contacts
+     * @param idColumn    column of contact id
+     * @param nameColumn  column of name
+     * @param previous    index of the previous snapshot, or null to build from scratch
+     * @return dial pad index
+     */
+    public static DialpadIndex build(Cursor cursor, int idColumn, int nameColumn, DialpadIndex previous) {
+        long[] ids = new long[cursor.getCount()];
+        String[] names = new String[ids.length];
+        for (int i = 0; cursor.moveToPosition(i); i++) {
+            ids[i] = cursor.getLong(idColumn);
+            names[i] = cursor.getString(nameColumn);
+        }
+        cursor.moveToPosition(-1);
+        return build(ids, names, previous);
+    }
+
+    /**
+     * build index from contacts
+     *
+     * @param ids      contact id of each row
+     * @param names    name of each row
+     * @param previous index of the previous snapshot, or null to build from scratch
+     * @return dial pad index
+     */
+    public static DialpadIndex build(long[] ids, String[] names, DialpadIndex previous) {
+        // take over sorted tokens of unchanged contacts
+        boolean[] reused = new boolean[names.length];
+        int[] keptTokens = new int[0];
+        int[] keptRows = new int[0];
+        int keptCount = 0;
+        if (previous != null) {
+            int[] rowTable = buildRowTable(ids);
+            int previousCount = previous.getTokenCount();
+            keptTokens = new int[previousCount];
+            keptRows = new int[previousCount];
+            for (int token = 0; token < previousCount; token++) {
+                int row = findRow(rowTable, ids, previous.mTokenIds[token]);
+                if (row >= 0 && names[row] != null
+                        && names[row].equals(previous.mNames[previous.mTokenRows[token]])) {
+                    keptTokens[keptCount] = token;
+                    keptRows[keptCount++] = row;
+                    reused[row] = true;
+                }
+            }
+        }
+
+        // convert and sort tokens of new or renamed contacts
+        String[] freshDigits = new String[16];
+        int[] freshRows = new int[freshDigits.length];
+        int freshCount = 0;
+        for (int row = 0; row < names.length; row++) {
+            if (reused[row] || names[row] == null) {
+                continue;
+            }
+            String name = names[row];
+            int start = -1;
+            for (int i = 0; i <= name.length(); i++) {
+                boolean letterOrDigit = i < name.length() && Character.isLetterOrDigit(name.charAt(i));
+                if (letterOrDigit && start < 0) {
+                    start = i;
+                } else if (!letterOrDigit && start >= 0) {
+                    String digits = toDigits(name.substring(start, i));
+                    if (!digits.isEmpty()) {
+                        if (freshCount == freshDigits.length) {
+                            freshDigits = Arrays.copyOf(freshDigits, freshCount * 2);
+                            freshRows = Arrays.copyOf(freshRows, freshCount * 2);
+                        }
+                        freshDigits[freshCount] = digits;
+                        freshRows[freshCount++] = row;
+                    }
+                    start = -1;
+                }
+            }
+        }
+        int[] order = new int[freshCount];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        sortByDigits(order, new int[order.length], 0, order.length, freshDigits);
+
+        // merge both sorted runs
+        int tokenCount = keptCount + freshCount;
+        int digitCount = 0;
+        for (int i = 0; i < keptCount; i++) {
+            digitCount += previous.getTokenLength(keptTokens[i]);
+        }
+        for (int i = 0; i < freshCount; i++) {
+            digitCount += freshDigits[i].length();
+        }
+        char[] digits = new char[digitCount];
+        int[] tokenStarts = new int[tokenCount + 1];
+        int[] tokenRows = new int[tokenCount];
+        long[] tokenIds = new long[tokenCount];
+        int kept = 0;
+        int fresh = 0;
+        int offset = 0;
+        for (int token = 0; token < tokenCount; token++) {
+            int row;
+            boolean takeKept = fresh == freshCount || (kept < keptCount
+                    && previous.compareToken(keptTokens[kept], freshDigits[order[fresh]]) <= 0);
+            if (takeKept) {
+                int from = previous.mTokenStarts[keptTokens[kept]];
+                int length = previous.getTokenLength(keptTokens[kept]);
+                System.arraycopy(previous.mDigits, from, digits, offset, length);
+                offset += length;
+                row = keptRows[kept++];
+            } else {
+                String freshToken = freshDigits[order[fresh]];
+                freshToken.getChars(0, freshToken.length(), digits, offset);
+                offset += freshToken.length();
+                row = freshRows[order[fresh++]];
+            }
+            tokenRows[token] = row;
+            tokenIds[token] = ids[row];
+            tokenStarts[token + 1] = offset;
+        }
+        return new DialpadIndex(digits, tokenStarts, tokenRows, tokenIds, names);
+    }
+
+    /**
+     * build open addressing table of rows by contact id, a slot holds row + 1, or 0 if it's empty
+     */
+    private static int[] buildRowTable(long[] ids) {
+        int[] table = new int[Integer.highestOneBit(Math.max(ids.length, 1) * 2) * 2];
+        for (int row = 0; row < ids.length; row++) {
+            int slot = slotOf(ids[row], table.length);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            table[slot] = row + 1;
+        }
+        return table;
+    }
+
+    /**
+     * find row of contact id in table built by {@link #buildRowTable(long[])}
+     *
+     * @return row, or -1 if contact is absent
+     */
+    private static int findRow(int[] table, long[] ids, long id) {
+        int slot = slotOf(id, table.length);
+        while (table[slot] != 0) {
+            if (ids[table[slot] - 1] == id) {
+                return table[slot] - 1;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    private static int slotOf(long id, int tableLength) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (tableLength - 1);
+    }
+
+    /**
+     * stable merge sort of order[from, to) by digits of each entry, scratch is as long as order
+     */
+    private static void sortByDigits(int[] order, int[] scratch, int from, int to, String[] digits) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortByDigits(order, scratch, from, middle, digits);
+        sortByDigits(order, scratch, middle, to, digits);
+        if (digits[order[middle - 1]].compareTo(digits[order[middle]]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || (left < middle
+                    && digits[scratch[left]].compareTo(digits[scratch[right]]) <= 0)) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * estimate bytes held by index
+     *
+     * @return bytes
+     */
+    long getByteCount() {
+        // names themselves are held by search index
+        return 2L * mDigits.length + 8L * mTokenIds.length
+                + 4L * (mTokenStarts.length + mTokenRows.length + mNames.length);
+    }
+
+    /**
+     * map token to key pad digits, characters absent from key pad are dropped
+     *
+     * @param token name token
+     * @return digits
+     */
+    public static String toDigits(String token) {
+        StringBuilder digits = new StringBuilder(token.length());
+        for (int i = 0; i < token.length(); i++) {
+            char c = Character.toLowerCase(token.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                digits.append(KEYPAD.charAt(c - 'a'));
+            } else if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * search contacts having a name token starting with digits
+     *
+     * @param query    digits typed by user
+     * @param previous result of the previous query, it's narrowed if query extends its query
+     * @return result, or null if query is empty
+     */
+    public Result search(String query, Result previous) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        int from = 0;
+        int to = getTokenCount();
+        if (previous != null && query.startsWith(previous.mQuery)) {
+            // tokens matching query are a sub range of tokens matching the previous query
+            from = previous.mFrom;
+            to = previous.mTo;
+        }
+        int low = bound(from, to, query, false);
+        int high = bound(low, to, query, true);
+
+        int[] rows = new int[high - low];
+        for (int token = low; token < high; token++) {
+            rows[token - low] = mTokenRows[token];
+        }
+        Arrays.sort(rows);
+        int count = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (i == 0 || rows[i] != rows[i - 1]) {
+                rows[count++] = rows[i];
+            }
+        }
+        return new Result(query, low, high, Arrays.copyOf(rows, count));
+    }
+
+    /**
+     * find the first token within [from, to) whose prefix is not less than query, or greater than
+     * query if upper is true
+     */
+    private int bound(int from, int to, String query, boolean upper) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            int compare = comparePrefix(mid, query);
+            if (compare < 0 || (upper && compare == 0)) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * compare prefix of token, which is as long as query, with query
+     */
+    private int comparePrefix(int token, String query) {
+        int start = mTokenStarts[token];
+        int length = getTokenLength(token);
+        for (int i = 0; i < query.length(); i++) {
+            if (i == length) {
+                return -1;
+            }
+            int compare = mDigits[start + i] - query.charAt(i);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * compare token with digits, in the same order as {@link String#compareTo(String)}
+     */
+    private int compareToken(int token, String digits) {
+        int start = mTokenStarts[token];
+        int length = getTokenLength(token);
+        for (int i = 0; i < Math.min(length, digits.length()); i++) {
+            int compare = mDigits[start + i] - digits.charAt(i);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return length - digits.length();
+    }
+
+    private int getTokenLength(int token) {
+        return mTokenStarts[token + 1] - mTokenStarts[token];
+    }
+
+    private int getTokenCount() {
+        return mTokenRows.length;
+    }
+}
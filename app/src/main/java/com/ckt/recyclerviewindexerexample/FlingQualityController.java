@@ -0,0 +1,85 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.os.SystemClock;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.TypedValue;
+
+/**
+ * This class is used to degrade rendering of contacts list while it scrolls fast. Above a
+ * velocity threshold, the adapter shows placeholders instead of decoding thumbnails and the
+ * header decoration draws plain header bands, so fling frames stay within budget. When the
+ * list slows down or settles, only the rows actually visible are upgraded.
+ *
+ * @author David Chow
+ */
+public class FlingQualityController extends RecyclerView.OnScrollListener {
+    // velocity to enter low quality mode, a 48dp row moves by its own height every frame at 3000dp/s
+    private static final int FAST_VELOCITY_DP_PER_SECOND = 3000;
+    // velocity to leave low quality mode while still scrolling, lower so that mode doesn't flicker
+    private static final int SLOW_VELOCITY_DP_PER_SECOND = 1000;
+
+    private ContactsAdapter mAdapter;
+    private StickyHeaderDecoration mDecoration;
+    private float mFastVelocity, mSlowVelocity;
+
+    // smoothed velocity in pixels per second, and time of the previous scroll
+    private float mVelocity;
+    private long mLastScrollMillis;
+    private boolean mLowQuality;
+
+    FlingQualityController(RecyclerView recyclerView, ContactsAdapter adapter, StickyHeaderDecoration decoration) {
+        mAdapter = adapter;
+        mDecoration = decoration;
+        mFastVelocity = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, FAST_VELOCITY_DP_PER_SECOND,
+                recyclerView.getResources().getDisplayMetrics());
+        mSlowVelocity = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, SLOW_VELOCITY_DP_PER_SECOND,
+                recyclerView.getResources().getDisplayMetrics());
+        recyclerView.addOnScrollListener(this);
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            mVelocity = 0;
+            mLastScrollMillis = 0;
+            setLowQuality(recyclerView, false);
+        }
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        long now = SystemClock.uptimeMillis();
+        long elapsed = now - mLastScrollMillis;
+        mLastScrollMillis = now;
+        if (recyclerView.getScrollState() == RecyclerView.SCROLL_STATE_IDLE || elapsed <= 0 || elapsed > 100) {
+            // jump of indexer or the first frame of a scroll, there is no velocity yet
+            return;
+        }
+        // smooth velocity over frames, a single late frame shouldn't switch mode
+        mVelocity = (mVelocity + Math.abs(dy) * 1000.f / elapsed) / 2;
+        if (mVelocity > mFastVelocity) {
+            setLowQuality(recyclerView, true);
+        } else if (mVelocity < mSlowVelocity) {
+            setLowQuality(recyclerView, false);
+        }
+    }
+
+    private void setLowQuality(RecyclerView recyclerView, boolean lowQuality) {
+        if (mLowQuality == lowQuality) {
+            return;
+        }
+        mLowQuality = lowQuality;
+        mAdapter.setLowQuality(lowQuality);
+        mDecoration.setLowQuality(lowQuality);
+        if (!lowQuality) {
+            RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            if (layoutManager instanceof LinearLayoutManager) {
+                LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+                mAdapter.upgradeRows(linearLayoutManager.findFirstVisibleItemPosition(),
+                        linearLayoutManager.findLastVisibleItemPosition());
+            }
+        }
+        recyclerView.invalidate();
+    }
+}
@@ -1,32 +1,50 @@
 package com.ckt.recyclerviewindexerexample;
 
 import android.Manifest;
+import android.arch.lifecycle.ViewModelProvider;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.os.Bundle;
-import android.provider.ContactsContract;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.app.LoaderManager;
-import android.support.v4.content.CursorLoader;
 import android.support.v4.content.Loader;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
 import android.support.v7.widget.Toolbar;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.SectionIndexer;
 
+import com.ckt.recyclerviewindexer.CacheRegistry;
+import com.ckt.recyclerviewindexer.HistogramMetrics;
 import com.ckt.recyclerviewindexer.SimpleIndexer;
 import com.ckt.recyclerviewindexer.SquareIndexer;
 
-public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<Cursor> {
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<ContactsSnapshot> {
     private RecyclerView mContactsList;
     private ContactsAdapter mAdapter;
+    private StickyHeaderDecoration mHeaderDecoration;
+    private SimpleIndexer mIndexer;
+    private SectionPrefetcher mPrefetcher;
+    private SectionSmoothScroller mSectionScroller;
+    // snapshot and indexes retained across configuration changes
+    private ContactsViewModel mViewModel;
+    // caches of this screen, trimmed in tiers as memory gets short
+    private CacheRegistry mCacheRegistry = new CacheRegistry();
+    // frame time and latency histograms, snapshot them to export percentiles
+    private HistogramMetrics mMetrics = new HistogramMetrics();
+    private ContactsSearchIndex mSearchIndex;
+    private ContactsSearchIndex.Result mSearchResult;
+    private DialpadIndex mDialpadIndex;
+    private DialpadIndex.Result mDialpadResult;
 
     private static final String PERMISSION_READ_CONTACT = Manifest.permission.READ_CONTACTS;
     private static final String PERMISSION_WRITE_CONTACT = Manifest.permission.WRITE_CONTACTS;
@@ -61,28 +79,155 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
         // init RecyclerView
         mContactsList = findViewById(R.id.contacts);
         mContactsList.setLayoutManager(new LinearLayoutManager(this));
-        mContactsList.setAdapter(mAdapter = new ContactsAdapter(this, null));
+        mViewModel = new ViewModelProvider(this, new ViewModelProvider.NewInstanceFactory())
+                .get(ContactsViewModel.class);
+        mContactsList.setAdapter(mAdapter = new ContactsAdapter(this, null, mViewModel.getThumbnailCache(this)));
         mAdapter.setOnContactClickListener(uri -> {
         });
-        mContactsList.addItemDecoration(new StickyHeaderDecoration(this, StickyHeaderDecoration.VERTICAL));
+        mAdapter.setMetrics(mMetrics);
+        mAdapter.setTracing(BuildConfig.DEBUG);
+        mHeaderDecoration = new StickyHeaderDecoration(this, StickyHeaderDecoration.VERTICAL);
+        mHeaderDecoration.setMetrics(mMetrics);
+        mHeaderDecoration.setTracing(BuildConfig.DEBUG);
+        mContactsList.addItemDecoration(mHeaderDecoration);
+        // skip thumbnail decodes and header text while flinging
+        new FlingQualityController(mContactsList, mAdapter, mHeaderDecoration);
         SimpleIndexer.Builder builder = new SimpleIndexer.Builder(this, ContactsIndexer.DEFAULT_INDEXER_CHARACTERS)
                 .indexerTextSize(12)
                 .padding(SimpleIndexer.DEFAULT_PADDING_DP)
-                .indicatorColor(SimpleIndexer.DEFAULT_INDICATOR_BG_COLOR);
-        SimpleIndexer balloonIndexer = new SquareIndexer(builder);
+                .indicatorColor(SimpleIndexer.DEFAULT_INDICATOR_BG_COLOR)
+                .tracing(BuildConfig.DEBUG);
+        mIndexer = new SquareIndexer(builder);
+        mIndexer.setMetrics(mMetrics);
 
-        balloonIndexer.attachToRecyclerView(mContactsList, (rv, sectionIndex) -> {
+        // warm target section as soon as it's hovered, before the jump lands
+        mPrefetcher = new SectionPrefetcher(mContactsList, mAdapter);
+        // jump close to section at once, then animate the last screen in a fixed time
+        mSectionScroller = new SectionSmoothScroller(mContactsList, mPrefetcher);
+        mIndexer.attachToRecyclerView(mContactsList, (rv, sectionIndex) -> {
             RecyclerView.Adapter adapter = rv.getAdapter();
             if (adapter instanceof SectionIndexer) {
                 SectionIndexer indexer = (SectionIndexer) adapter;
-                int pos = indexer.getPositionForSection(sectionIndex);
-                RecyclerView.LayoutManager layoutManager = rv.getLayoutManager();
-                if (layoutManager instanceof LinearLayoutManager) {
-                    LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
-                    linearLayoutManager.scrollToPositionWithOffset(pos, 0);
-                }
+                mSectionScroller.jumpTo(indexer.getPositionForSection(sectionIndex));
+            }
+        });
+        mIndexer.setOnSectionHoverListener((rv, sectionIndex) -> mPrefetcher.prefetchSection(sectionIndex));
+        // hierarchical mode, jump to start of prefix selected within section
+        mIndexer.setOnPrefixListener((rv, sectionIndex, prefix, position) -> mSectionScroller.jumpTo(position));
+        // scrub mode, which is on for long lists only, see ContactsLoader.SCRUB_THRESHOLD. It
+        // follows finger to exact position within section without animation, shorter lists jump
+        // to sections by the section scroller above. Hover warmed the start of section, rows
+        // around position are warmed right before they're bound
+        mIndexer.setOnScrubListener((rv, sectionIndex, position) -> {
+            RecyclerView.LayoutManager layoutManager = rv.getLayoutManager();
+            if (layoutManager instanceof LinearLayoutManager) {
+                mPrefetcher.warm(position, rv.getChildCount());
+                ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
             }
         });
+
+        // thumbnails first, then indicators, and search indexes only when process may be killed
+        mCacheRegistry.register(mViewModel.getThumbnailCache(this));
+        mCacheRegistry.register(mIndexer);
+        mCacheRegistry.register(tier -> tier >= CacheRegistry.TIER_ALL ? trimSearchIndexes() : 0);
+        getApplicationContext().registerComponentCallbacks(mCacheRegistry);
+
+        // recreated by a configuration change, rebind the retained snapshot before the first
+        // layout, so the list never shows a blank frame and scroll position is restored
+        if (mViewModel.getSnapshot() != null) {
+            applySnapshot();
+        }
+    }
+
+    /**
+     * show the snapshot held by view model, indexes were built in the background by loader
+     */
+    private void applySnapshot() {
+        ContactsSnapshot snapshot = mViewModel.getSnapshot();
+        mSectionScroller.cancel();
+        if (snapshot == null) {
+            mAdapter.swapCursor(null);
+        } else {
+            mAdapter.swapCursor(snapshot.getCursor(), snapshot.getSectionTable(),
+                    snapshot.getScrubTable(), snapshot.getPrefixIndex());
+        }
+        updateIndexerTables();
+        // positions of the previous result are stale
+        mSearchIndex = snapshot != null ? snapshot.getSearchIndex() : null;
+        mSearchResult = null;
+        mDialpadIndex = snapshot != null ? snapshot.getDialpadIndex() : null;
+        mDialpadResult = null;
+        // search is unavailable on a paged list
+        invalidateOptionsMenu();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        rebuildTrimmedIndexes();
+    }
+
+    /**
+     * reload if search indexes of the snapshot were trimmed, loader rebuilds them off main thread.
+     * Paged list has no search indexes at all.
+     */
+    private void rebuildTrimmedIndexes() {
+        ContactsSnapshot snapshot = mViewModel.getSnapshot();
+        if (snapshot != null && !snapshot.isPaged() && snapshot.getSearchIndex() == null) {
+            Loader<ContactsSnapshot> loader = getSupportLoaderManager().getLoader(CONTACT_LOADER_ID);
+            if (loader != null) {
+                loader.onContentChanged();
+            }
+        }
+    }
+
+    /**
+     * drop search indexes held by this screen, view model and loader
+     *
+     * @return bytes freed, estimated
+     */
+    private long trimSearchIndexes() {
+        Loader<ContactsSnapshot> loader = getSupportLoaderManager().getLoader(CONTACT_LOADER_ID);
+        if (loader instanceof ContactsLoader) {
+            ((ContactsLoader) loader).trimSearchIndexes();
+        }
+        mSearchIndex = null;
+        mSearchResult = null;
+        mDialpadIndex = null;
+        mDialpadResult = null;
+        return mViewModel.trimSearchIndexes();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        getApplicationContext().unregisterComponentCallbacks(mCacheRegistry);
+        // release resources shared with other indexers
+        mIndexer.release();
+        // retained cursor outlives this screen, unregister observers of this adapter from it
+        mAdapter.swapCursor(null);
+    }
+
+    /**
+     * print stats of contacts list, run "adb shell dumpsys activity
+     * com.ckt.recyclerviewindexerexample/.MainActivity" to see them
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        if (mAdapter == null) {
+            return;
+        }
+        writer.print(prefix);
+        writer.println("Contacts list:");
+        String innerPrefix = prefix + "  ";
+        mAdapter.dump(writer, innerPrefix);
+        mHeaderDecoration.dump(writer, innerPrefix);
+        mIndexer.dump(writer, innerPrefix);
+        writer.print(innerPrefix);
+        writer.println("Metrics:");
+        mMetrics.dump(writer, innerPrefix + "  ");
+        mCacheRegistry.dump(writer, innerPrefix);
     }
 
     private void requestContactPermission() {
@@ -100,9 +245,35 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_main, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.menu_search).getActionView();
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                return onQueryTextChange(query);
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                search(newText);
+                return true;
+            }
+        });
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        // paged list has no search indexes, names are not kept in memory
+        MenuItem searchItem = menu.findItem(R.id.menu_search);
+        ContactsSnapshot snapshot = mViewModel.getSnapshot();
+        boolean searchable = snapshot == null || !snapshot.isPaged();
+        if (!searchable) {
+            searchItem.collapseActionView();
+        }
+        searchItem.setVisible(searchable);
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         // Handle action bar item clicks here. The action bar will
@@ -119,29 +290,101 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
     }
 
 
+    /**
+     * search contacts in memory and show only the matches, each keystroke narrows the previous result.
+     * Query of digits is searched as typed on dial pad.
+     *
+     * @param query query typed by user
+     */
+    private void search(String query) {
+        if (mSearchIndex == null || mDialpadIndex == null) {
+            // trimmed on low memory while visible
+            rebuildTrimmedIndexes();
+            return;
+        }
+        // both results are in list order, so that sticky headers and indexer stay grouped
+        int[] rows = null;
+        int best = 0;
+        if (isDigits(query)) {
+            mDialpadResult = mDialpadIndex.search(query, mDialpadResult);
+            rows = mDialpadResult.getRows();
+        } else {
+            mSearchResult = mSearchIndex.search(query, mSearchResult);
+            if (mSearchResult != null) {
+                rows = mSearchResult.getPositions();
+                best = Math.max(mSearchResult.getBestIndex(), 0);
+            }
+        }
+        mSectionScroller.cancel();
+        mAdapter.setFilter(rows);
+        updateIndexerTables();
+        // bring the best ranked match into view
+        mContactsList.scrollToPosition(best);
+    }
+
+    /**
+     * check whether query is made of ASCII digits only, without compiling a pattern per keystroke
+     */
+    private static boolean isDigits(String query) {
+        if (query.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * feed indexer with tables of rows shown by adapter
+     */
+    private void updateIndexerTables() {
+        mIndexer.setSectionTable(mAdapter.getSectionTable());
+        mIndexer.setScrubTable(mAdapter.getScrubTable());
+        mIndexer.setPrefixIndex(mAdapter.getPrefixIndex());
+    }
+
     @NonNull
     @Override
-    public Loader<Cursor> onCreateLoader(int id, @Nullable Bundle args) {
-        return new CursorLoader(
-                this,
-                ContactsContract.Contacts.CONTENT_URI,
-                ContactsQueryInterface.PROJECTION,
-                null,
-                null,
-                ContactsContract.Contacts.SORT_KEY_PRIMARY);
+    public Loader<ContactsSnapshot> onCreateLoader(int id, @Nullable Bundle args) {
+        ContactsLoader loader = new ContactsLoader(this);
+        loader.setTracing(BuildConfig.DEBUG);
+        return loader;
     }
 
     @Override
-    public void onLoadFinished(@NonNull Loader<Cursor> loader, Cursor data) {
-        if (loader.getId() == CONTACT_LOADER_ID) {
-            mAdapter.swapCursor(data);
+    public void onLoadFinished(@NonNull Loader<ContactsSnapshot> loader, ContactsSnapshot data) {
+        if (loader.getId() != CONTACT_LOADER_ID) {
+            return;
+        }
+        // loader redelivers the retained snapshot after a configuration change, it's shown
+        // already, maybe without search indexes which were trimmed
+        ContactsSnapshot shown = mViewModel.getSnapshot();
+        if (data == shown || data != null && shown != null && data.getCursor() == shown.getCursor()) {
+            return;
         }
+        // indexes were built in the background, they are swapped in along with cursor
+        mViewModel.setSnapshot(data);
+        applySnapshot();
     }
 
     @Override
-    public void onLoaderReset(@NonNull Loader<Cursor> loader) {
+    public void onLoaderReset(@NonNull Loader<ContactsSnapshot> loader) {
         if (loader.getId() == CONTACT_LOADER_ID) {
+            mPrefetcher.cancel();
+            mSectionScroller.cancel();
+            mViewModel.setSnapshot(null);
             mAdapter.swapCursor(null);
+            mIndexer.setSectionTable(null);
+            mIndexer.setScrubTable(null);
+            mIndexer.setPrefixIndex(null);
+            mSearchIndex = null;
+            mSearchResult = null;
+            mDialpadIndex = null;
+            mDialpadResult = null;
         }
     }
 
@@ -0,0 +1,275 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.database.AbstractCursor;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.widget.SectionIndexer;
+
+import com.ckt.recyclerviewindexer.SectionClassifier;
+import com.ckt.recyclerviewindexer.SectionTable;
+
+import java.text.Collator;
+
+/**
+ * A cursor which merges several sorted sources, for example, starred contacts, device contacts,
+ * SIM contacts and corporate directory, into one sorted list without copying rows.
+ * <p>
+ * It's also a {@link SectionIndexer} over the merged list, so the adapter,
+ * {@link StickyHeaderDecoration} and indexer work over it unchanged. Sources are merged section
+ * by section and then by sorted column, ties keep the order of sources. So every section appears
+ * once, its global start is the sum of its starts within sources, and a single section table is
+ * valid for the merged list. The source and local row of each global position are kept in
+ * primitive arrays built once, so a move costs O(1).
+ *
+ * @author David Chow
+ */
+public class MergedContactsCursor extends AbstractCursor implements SectionIndexer {
+    private Cursor[] mCursors;
+    private Cursor mCursor;
+
+    // source and row within source of each global position
+    private byte[] mRowSources;
+    private int[] mLocalRows;
+    // section table of the merged list
+    private SectionTable mSectionTable;
+    private String[] mSections;
+
+    /**
+     * Constructs the merged cursor.
+     *
+     * @param cursors           sources, each one is sorted by sorted column. Null source is skipped.
+     * @param sortedColumnIndex the column number in cursors that is sorted alphabetically
+     */
+    public MergedContactsCursor(Cursor[] cursors, int sortedColumnIndex) {
+        this(cursors, sortedColumnIndex, ContactsIndexer.DEFAULT_INDEXER_CHARACTERS);
+    }
+
+    /**
+     * Constructs the merged cursor, it reads sorted column of every row once, so it should be
+     * called off the main thread.
+     *
+     * @param cursors           sources, each one is sorted by sorted column. Null source is skipped.
+     * @param sortedColumnIndex the column number in cursors that is sorted alphabetically
+     * @param alphabet          string containing the indexable characters, see {@link ContactsIndexer}
+     */
+    public MergedContactsCursor(Cursor[] cursors, int sortedColumnIndex, String alphabet) {
+        int sourceCount = 0;
+        int count = 0;
+        for (Cursor cursor : cursors) {
+            if (cursor != null) {
+                sourceCount++;
+                count += cursor.getCount();
+            }
+        }
+        if (sourceCount > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("too many sources: " + sourceCount);
+        }
+        mCursors = new Cursor[sourceCount];
+        int source = 0;
+        for (Cursor cursor : cursors) {
+            if (cursor != null) {
+                mCursors[source++] = cursor;
+            }
+        }
+
+        // rows are classified the way ContactsIndexer does, and ordered within a section the
+        // way AlphabetIndexer compares them
+        SectionClassifier classifier = new SectionClassifier(alphabet);
+        Collator collator = Collator.getInstance();
+        collator.setStrength(Collator.PRIMARY);
+        int sectionCount = alphabet.length();
+        mRowSources = new byte[count];
+        mLocalRows = new int[count];
+        int[] sectionStarts = new int[sectionCount];
+        int[] heads = new int[sourceCount];
+        String[] headKeys = new String[sourceCount];
+        int[] headSections = new int[sourceCount];
+        for (int i = 0; i < sourceCount; i++) {
+            readHead(i, 0, sortedColumnIndex, classifier, headKeys, headSections);
+        }
+        int nextSection = 0;
+        for (int position = 0; position < count; position++) {
+            // k-way merge, sources are few so the smallest head is found by a scan
+            int next = -1;
+            for (int i = 0; i < sourceCount; i++) {
+                if (heads[i] < mCursors[i].getCount() && (next < 0
+                        || compareHeads(collator, headSections, headKeys, i, next) < 0)) {
+                    next = i;
+                }
+            }
+            while (nextSection <= headSections[next] && nextSection < sectionCount) {
+                sectionStarts[nextSection++] = position;
+            }
+            mRowSources[position] = (byte) next;
+            mLocalRows[position] = heads[next]++;
+            readHead(next, heads[next], sortedColumnIndex, classifier, headKeys, headSections);
+        }
+        while (nextSection < sectionCount) {
+            sectionStarts[nextSection++] = count;
+        }
+        mSectionTable = new SectionTable(sectionStarts, count);
+
+        mSections = new String[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            mSections[i] = String.valueOf(alphabet.charAt(i));
+        }
+    }
+
+    /**
+     * read sorted column and section of the head row of source
+     */
+    private void readHead(int source, int row, int columnIndex, SectionClassifier classifier,
+                          String[] headKeys, int[] headSections) {
+        if (mCursors[source].moveToPosition(row)) {
+            headKeys[source] = mCursors[source].getString(columnIndex);
+            headSections[source] = classifier.getSectionForKey(headKeys[source]);
+        }
+    }
+
+    /**
+     * compare head rows of two sources by section, then by sorted column, null first
+     */
+    private static int compareHeads(Collator collator, int[] headSections, String[] headKeys,
+                                    int a, int b) {
+        if (headSections[a] != headSections[b]) {
+            return headSections[a] - headSections[b];
+        }
+        String keyA = headKeys[a];
+        String keyB = headKeys[b];
+        if (keyA == null || keyB == null) {
+            return keyA == null ? (keyB == null ? 0 : -1) : 1;
+        }
+        return collator.compare(keyA, keyB);
+    }
+
+    /**
+     * get source cursor which global position belongs to
+     *
+     * @param position global position
+     * @return source cursor
+     */
+    public Cursor getSourceCursor(int position) {
+        return mCursors[mRowSources[position]];
+    }
+
+    @Override
+    public boolean onMove(int oldPosition, int newPosition) {
+        mCursor = mCursors[mRowSources[newPosition]];
+        return mCursor.moveToPosition(mLocalRows[newPosition]);
+    }
+
+    @Override
+    public int getCount() {
+        return mLocalRows.length;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mCursors.length > 0 ? mCursors[0].getColumnNames() : new String[0];
+    }
+
+    @Override
+    public String getString(int column) {
+        return mCursor.getString(column);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return mCursor.getShort(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return mCursor.getInt(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        return mCursor.getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return mCursor.getFloat(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        return mCursor.getDouble(column);
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        return mCursor.getBlob(column);
+    }
+
+    @Override
+    public int getType(int column) {
+        return mCursor.getType(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return mCursor.isNull(column);
+    }
+
+    @Override
+    public void deactivate() {
+        for (Cursor cursor : mCursors) {
+            cursor.deactivate();
+        }
+        super.deactivate();
+    }
+
+    @Override
+    public void close() {
+        for (Cursor cursor : mCursors) {
+            cursor.close();
+        }
+        super.close();
+    }
+
+    @Override
+    public void registerContentObserver(ContentObserver observer) {
+        for (Cursor cursor : mCursors) {
+            cursor.registerContentObserver(observer);
+        }
+    }
+
+    @Override
+    public void unregisterContentObserver(ContentObserver observer) {
+        for (Cursor cursor : mCursors) {
+            cursor.unregisterContentObserver(observer);
+        }
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        for (Cursor cursor : mCursors) {
+            cursor.registerDataSetObserver(observer);
+        }
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        for (Cursor cursor : mCursors) {
+            cursor.unregisterDataSetObserver(observer);
+        }
+    }
+
+    @Override
+    public Object[] getSections() {
+        return mSections;
+    }
+
+    @Override
+    public int getPositionForSection(int sectionIndex) {
+        return mSectionTable.getPositionForSection(sectionIndex);
+    }
+
+    @Override
+    public int getSectionForPosition(int position) {
+        return mSectionTable.getSectionForPosition(position);
+    }
+}
@@ -0,0 +1,447 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.content.ContentResolver;
+import android.database.AbstractCursor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.ContactsContract;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.SectionIndexer;
+
+import com.ckt.recyclerviewindexer.PrefixIndex;
+import com.ckt.recyclerviewindexer.ScrubTable;
+import com.ckt.recyclerviewindexer.SectionClassifier;
+import com.ckt.recyclerviewindexer.SectionTable;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cursor over a huge sorted contacts list, for example, a corporate directory of hundreds of
+ * thousands of entries, which keeps only a bounded window of rows in memory.
+ * <p>
+ * Rows are loaded in fixed size pages by sort key range queries: a page starts at the sort key
+ * and id of its first row and is limited to {@link #PAGE_SIZE} rows, so the provider seeks to it
+ * by the sort key instead of skipping all rows before it. Pages are kept in a LRU of
+ * {@link #MAX_RESIDENT_PAGES} pages. Count, page starts, section table, scrub table and prefix
+ * index are built once from a narrow query of id, sort key and name when the cursor is opened,
+ * so indexer and sticky headers never need rows which are not resident.
+ * <p>
+ * A row which is not resident reads as null, the adapter binds a placeholder for it, and only
+ * the page it belongs to is queried in the background. An indexer jump therefore loads just the
+ * target page, and {@link onPageLoadedListener} is told to rebind the rows once it arrives.
+ *
+ * @author David Chow
+ */
+public class PagedContactsCursor extends AbstractCursor implements SectionIndexer {
+    private static final String TAG = "PagedContactsCursor";
+
+    // rows of a page
+    static final int PAGE_SIZE = 256;
+    // pages kept in memory, enough for several screens around two jump targets
+    static final int MAX_RESIDENT_PAGES = 8;
+
+    // pages are queried one by one, so a burst of jumps never floods the provider
+    private static final ExecutorService sPageExecutor = Executors.newSingleThreadExecutor();
+
+    // selection of rows from the first row of a page, in (sort key, id) order. Comparison uses
+    // collation of sort key column, which is the one the provider sorts with.
+    private static final String SELECTION_FROM_KEY = ContactsContract.Contacts.SORT_KEY_PRIMARY
+            + " > ? OR (" + ContactsContract.Contacts.SORT_KEY_PRIMARY + " = ? AND "
+            + ContactsContract.Contacts._ID + " >= ?)";
+    // rows without sort key are sorted first
+    private static final String SELECTION_FROM_NULL_KEY = "("
+            + ContactsContract.Contacts.SORT_KEY_PRIMARY + " IS NULL AND "
+            + ContactsContract.Contacts._ID + " >= ?) OR "
+            + ContactsContract.Contacts.SORT_KEY_PRIMARY + " IS NOT NULL";
+    static final String SORT_ORDER = ContactsContract.Contacts.SORT_KEY_PRIMARY + ", "
+            + ContactsContract.Contacts._ID;
+
+    // columns read from every row when cursor is opened, pages are queried with all columns
+    static final String[] INDEX_PROJECTION = {
+            ContactsContract.Contacts._ID,
+            ContactsContract.Contacts.SORT_KEY_PRIMARY,
+            ContactsContract.Contacts.DISPLAY_NAME_PRIMARY
+    };
+    private static final int INDEX_COLUMN_ID = 0;
+    private static final int INDEX_COLUMN_SORT_KEY = 1;
+    private static final int INDEX_COLUMN_NAME = 2;
+
+    private final ContentResolver mResolver;
+    private final Uri mPageUri;
+    private final String[] mColumnNames;
+    private final int mCount;
+    // sort key and id of the first row of each page
+    private final String[] mPageSortKeys;
+    private final long[] mPageIds;
+
+    private final SectionTable mSectionTable;
+    private final ScrubTable mScrubTable;
+    private final PrefixIndex mPrefixIndex;
+    private final String[] mSections;
+
+    // resident pages, touched and filled on main thread only
+    private final LruCache<Integer, Object[][]> mPages = new LruCache<>(MAX_RESIDENT_PAGES);
+    // pages queued or being queried
+    private final Set<Integer> mPendingPages = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // page of the latest move, queued pages far from it are dropped before they are queried
+    private volatile int mLastTouchedPage;
+    private volatile boolean mClosed;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // values of current row, null if current row is not resident
+    private Object[] mRow;
+    private onPageLoadedListener mPageLoadedListener;
+
+    // count of moves to a row which was not resident, pages loaded and loads dropped
+    private final AtomicLong mFaultCount = new AtomicLong();
+    private final AtomicLong mLoadCount = new AtomicLong();
+    private final AtomicLong mDroppedLoadCount = new AtomicLong();
+
+    public interface onPageLoadedListener {
+        /**
+         * called on main thread when rows of a page become resident
+         *
+         * @param firstRow the first row of page
+         * @param rowCount count of rows of page
+         */
+        void onPageLoaded(int firstRow, int rowCount);
+    }
+
+    private PagedContactsCursor(ContentResolver resolver, Uri uri, String[] columnNames, int count,
+                                String[] pageSortKeys, long[] pageIds, SectionTable sectionTable,
+                                ScrubTable scrubTable, PrefixIndex prefixIndex, String alphabet) {
+        mResolver = resolver;
+        mPageUri = uri.buildUpon()
+                .appendQueryParameter(ContactsContract.LIMIT_PARAM_KEY, String.valueOf(PAGE_SIZE))
+                .build();
+        mColumnNames = columnNames;
+        mCount = count;
+        mPageSortKeys = pageSortKeys;
+        mPageIds = pageIds;
+        mSectionTable = sectionTable;
+        mScrubTable = scrubTable;
+        mPrefixIndex = prefixIndex;
+        mSections = new String[alphabet.length()];
+        for (int i = 0; i < mSections.length; i++) {
+            mSections[i] = String.valueOf(alphabet.charAt(i));
+        }
+    }
+
+    /**
+     * Open paged cursor. The whole list is read once by a query of {@link #INDEX_PROJECTION}
+     * only, which is dropped once count, page starts and indexes are built, so neither full rows
+     * nor all names are ever held. It should be called off the main thread.
+     *
+     * @param resolver content resolver which list and pages are queried with
+     * @param uri      uri of contacts
+     * @param alphabet string containing the indexable characters, see {@link ContactsIndexer}
+     * @return paged cursor, or null if list couldn't be queried
+     */
+    static PagedContactsCursor open(ContentResolver resolver, Uri uri, String alphabet) {
+        Cursor cursor = resolver.query(uri, INDEX_PROJECTION, null, null, SORT_ORDER);
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            int count = cursor.getCount();
+            int pageCount = (count + PAGE_SIZE - 1) / PAGE_SIZE;
+            String[] pageSortKeys = new String[pageCount];
+            long[] pageIds = new long[pageCount];
+            SectionClassifier classifier = new SectionClassifier(alphabet);
+            int[] sectionStarts = new int[classifier.getSectionCount()];
+            int section = 0;
+            // section table is filled as rows stream by, prefix index is built in a second pass
+            // because its builder needs the table
+            for (int i = 0; cursor.moveToPosition(i); i++) {
+                if (i % PAGE_SIZE == 0) {
+                    pageSortKeys[i / PAGE_SIZE] = cursor.getString(INDEX_COLUMN_SORT_KEY);
+                    pageIds[i / PAGE_SIZE] = cursor.getLong(INDEX_COLUMN_ID);
+                }
+                int nameSection = classifier.getSectionForKey(cursor.getString(INDEX_COLUMN_NAME));
+                // sections between the previous one and this one are empty, they start here
+                while (section <= nameSection && section < sectionStarts.length) {
+                    sectionStarts[section++] = i;
+                }
+            }
+            while (section < sectionStarts.length) {
+                sectionStarts[section++] = count;
+            }
+            SectionTable sectionTable = new SectionTable(sectionStarts, count);
+
+            PrefixIndex.Builder builder = new PrefixIndex.Builder(sectionTable);
+            for (int i = 0; cursor.moveToPosition(i); i++) {
+                builder.add(cursor.getString(INDEX_COLUMN_NAME));
+            }
+            // labels are read at a few positions per section only
+            ScrubTable scrubTable = new ScrubTable(sectionTable, ScrubTable.DEFAULT_STEPS, position ->
+                    cursor.moveToPosition(position)
+                            ? PrefixIndex.normalize(cursor.getString(INDEX_COLUMN_NAME),
+                            PrefixIndex.DEFAULT_PREFIX_LENGTH)
+                            : null);
+
+            PagedContactsCursor paged = new PagedContactsCursor(resolver, uri,
+                    ContactsQueryInterface.PROJECTION, count, pageSortKeys, pageIds, sectionTable,
+                    scrubTable, builder.build(), alphabet);
+            Uri notificationUri = cursor.getNotificationUri();
+            paged.setNotificationUri(resolver, notificationUri != null ? notificationUri : uri);
+            return paged;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * set listener notified when a page becomes resident
+     *
+     * @param listener listener, or null to remove it
+     */
+    void setOnPageLoadedListener(onPageLoadedListener listener) {
+        mPageLoadedListener = listener;
+    }
+
+    SectionTable getSectionTable() {
+        return mSectionTable;
+    }
+
+    ScrubTable getScrubTable() {
+        return mScrubTable;
+    }
+
+    PrefixIndex getPrefixIndex() {
+        return mPrefixIndex;
+    }
+
+    @Override
+    public boolean onMove(int oldPosition, int newPosition) {
+        int page = newPosition / PAGE_SIZE;
+        mLastTouchedPage = page;
+        Object[][] rows = mPages.get(page);
+        int offset = newPosition - page * PAGE_SIZE;
+        mRow = rows != null && offset < rows.length ? rows[offset] : null;
+        if (rows == null) {
+            mFaultCount.incrementAndGet();
+            requestPage(page);
+        }
+        // rows which are not resident are placeholders, the position is valid anyway
+        return true;
+    }
+
+    /**
+     * queue query of page unless it's queued already
+     */
+    private void requestPage(int page) {
+        if (mClosed || !mPendingPages.add(page)) {
+            return;
+        }
+        sPageExecutor.execute(() -> loadPage(page));
+    }
+
+    /**
+     * query rows of page, it's called on the page thread
+     */
+    private void loadPage(int page) {
+        // list was scrolled away while page was queued, it will be requested again if needed
+        if (mClosed || Math.abs(page - mLastTouchedPage) > MAX_RESIDENT_PAGES / 2) {
+            mDroppedLoadCount.incrementAndGet();
+            mPendingPages.remove(page);
+            return;
+        }
+        String selection;
+        String[] selectionArgs;
+        String id = String.valueOf(mPageIds[page]);
+        if (mPageSortKeys[page] == null) {
+            selection = SELECTION_FROM_NULL_KEY;
+            selectionArgs = new String[]{id};
+        } else {
+            selection = SELECTION_FROM_KEY;
+            selectionArgs = new String[]{mPageSortKeys[page], mPageSortKeys[page], id};
+        }
+
+        int rowCount = Math.min(PAGE_SIZE, mCount - page * PAGE_SIZE);
+        Object[][] rows = new Object[rowCount][];
+        int count = 0;
+        Cursor cursor = null;
+        try {
+            cursor = mResolver.query(mPageUri, mColumnNames, selection, selectionArgs, SORT_ORDER);
+            while (cursor != null && count < rowCount && cursor.moveToNext()) {
+                rows[count++] = readRow(cursor);
+            }
+        } catch (RuntimeException e) {
+            // rows stay placeholders, page is requested again when they are bound
+            Log.w(TAG, "failed to load page " + page, e);
+            mPendingPages.remove(page);
+            return;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        // list changed since it was opened, missing rows stay placeholders until it's reloaded
+        Object[][] loaded = count == rowCount ? rows : Arrays.copyOf(rows, count);
+        mMainHandler.post(() -> {
+            mPendingPages.remove(page);
+            if (mClosed) {
+                return;
+            }
+            mPages.put(page, loaded);
+            mLoadCount.incrementAndGet();
+            if (mPageLoadedListener != null) {
+                mPageLoadedListener.onPageLoaded(page * PAGE_SIZE, rowCount);
+            }
+        });
+    }
+
+    private static Object[] readRow(Cursor cursor) {
+        Object[] row = new Object[cursor.getColumnCount()];
+        for (int i = 0; i < row.length; i++) {
+            switch (cursor.getType(i)) {
+                case FIELD_TYPE_INTEGER:
+                    row[i] = cursor.getLong(i);
+                    break;
+                case FIELD_TYPE_FLOAT:
+                    row[i] = cursor.getDouble(i);
+                    break;
+                case FIELD_TYPE_BLOB:
+                    row[i] = cursor.getBlob(i);
+                    break;
+                case FIELD_TYPE_STRING:
+                    row[i] = cursor.getString(i);
+                    break;
+                default:
+                    row[i] = null;
+                    break;
+            }
+        }
+        return row;
+    }
+
+    private Object get(int column) {
+        if (column < 0 || column >= mColumnNames.length) {
+            throw new IllegalArgumentException("invalid column " + column);
+        }
+        return mRow != null ? mRow[column] : null;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumnNames;
+    }
+
+    @Override
+    public String getString(int column) {
+        Object value = get(column);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        Object value = get(column);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value != null ? Long.parseLong(value.toString()) : 0;
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        Object value = get(column);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value != null ? Double.parseDouble(value.toString()) : 0;
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        Object value = get(column);
+        return value instanceof byte[] ? (byte[]) value : null;
+    }
+
+    @Override
+    public int getType(int column) {
+        Object value = get(column);
+        if (value == null) {
+            return FIELD_TYPE_NULL;
+        } else if (value instanceof byte[]) {
+            return FIELD_TYPE_BLOB;
+        } else if (value instanceof Double) {
+            return FIELD_TYPE_FLOAT;
+        } else if (value instanceof Long) {
+            return FIELD_TYPE_INTEGER;
+        }
+        return FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return get(column) == null;
+    }
+
+    @Override
+    public void close() {
+        mClosed = true;
+        mPages.evictAll();
+        mRow = null;
+        mPageLoadedListener = null;
+        super.close();
+    }
+
+    @Override
+    public Object[] getSections() {
+        return mSections;
+    }
+
+    @Override
+    public int getPositionForSection(int sectionIndex) {
+        return mSectionTable.getPositionForSection(sectionIndex);
+    }
+
+    @Override
+    public int getSectionForPosition(int position) {
+        return mSectionTable.getSectionForPosition(position);
+    }
+
+    /**
+     * print resident pages and counts of faults and loads
+     *
+     * @param writer writer to print to
+     * @param prefix prefix of every line
+     */
+    void dump(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println(String.format(Locale.US,
+                "paged cursor: rows=%d pages=%d resident=%d/%d pending=%d faults=%d loads=%d dropped=%d",
+                mCount, mPageIds.length, mPages.size(), MAX_RESIDENT_PAGES, mPendingPages.size(),
+                mFaultCount.get(), mLoadCount.get(), mDroppedLoadCount.get()));
+    }
+}
@@ -0,0 +1,93 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * This class is used to warm the first screen of a section in idle time, when the section is
+ * hovered by indexer but the jump has not landed. Indexer commits the jump only after main
+ * thread has been idle once, and that idle time is spent here. Each idle pass warms rows until its time budget is
+ * spent, so the work never delays the frame which commits the jump by much.
+ * <p>
+ * View holders are not created ahead, because the rows of current screen are recycled
+ * by the jump and reused for the target section.
+ *
+ * @author David Chow
+ */
+public class SectionPrefetcher implements MessageQueue.IdleHandler {
+    // time spent warming rows per idle pass, a quarter of a 60fps frame
+    private static final long IDLE_BUDGET_NANOS = 4000000;
+
+    private RecyclerView mRecyclerView;
+    private ContactsAdapter mAdapter;
+
+    // pending range of positions to be warmed, end is exclusive
+    private int mNextPosition, mEndPosition;
+    private boolean mScheduled;
+
+    SectionPrefetcher(RecyclerView recyclerView, ContactsAdapter adapter) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+    }
+
+    /**
+     * prefetch the first screen of section, it replaces the pending one
+     *
+     * @param sectionIndex index of section
+     */
+    void prefetchSection(int sectionIndex) {
+        int start = mAdapter.getPositionForSection(sectionIndex);
+        // a screen holds as many rows as current children
+        int count = Math.max(mRecyclerView.getChildCount(), 1);
+        prefetch(start, count);
+    }
+
+    /**
+     * prefetch count rows from start
+     *
+     * @param start first position to prefetch
+     * @param count count of rows
+     */
+    void prefetch(int start, int count) {
+        mNextPosition = Math.max(start, 0);
+        mEndPosition = Math.min(mNextPosition + count, mAdapter.getItemCount());
+        if (!mScheduled && mNextPosition < mEndPosition) {
+            mScheduled = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    /**
+     * warm count rows from start at once, it replaces the pending prefetch. It's used when the
+     * rows are going to be bound by the next frame, so idle time can't be waited for.
+     *
+     * @param start first position to warm
+     * @param count count of rows
+     */
+    void warm(int start, int count) {
+        cancel();
+        int end = Math.min(start + count, mAdapter.getItemCount());
+        for (int position = Math.max(start, 0); position < end; position++) {
+            mAdapter.prefetch(position);
+        }
+    }
+
+    /**
+     * cancel pending prefetch
+     */
+    void cancel() {
+        mNextPosition = mEndPosition = 0;
+    }
+
+    @Override
+    public boolean queueIdle() {
+        long deadline = System.nanoTime() + IDLE_BUDGET_NANOS;
+        while (mNextPosition < mEndPosition && System.nanoTime() < deadline) {
+            mAdapter.prefetch(mNextPosition++);
+        }
+        // keep idle handler while there are rows to be warmed
+        mScheduled = mNextPosition < mEndPosition;
+        return mScheduled;
+    }
+}
@@ -0,0 +1,154 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.animation.DecelerateInterpolator;
+
+/**
+ * This class is used to jump to a section in a fixed, short time however far it is.
+ * <p>
+ * The list is first teleported to one screen before the target, so rows in between are never
+ * bound, and then the last screen is animated into place in exactly {@link #JUMP_DURATION_MS}.
+ * Every frame of the animation measures the distance left to the target, from the target row
+ * itself once it's laid out, or from the row height before that, and scrolls by the part of it
+ * which is due by then. Rows of the last screen are warmed before the teleport is laid out.
+ *
+ * @author David Chow
+ */
+public class SectionSmoothScroller {
+    // duration of the animated part of every jump
+    static final int JUMP_DURATION_MS = 200;
+
+    private RecyclerView mRecyclerView;
+    private LinearLayoutManager mLayoutManager;
+    private SectionPrefetcher mPrefetcher;
+    private final ValueAnimator mAnimator = ValueAnimator.ofFloat(0.f, 1.f);
+    // position of the latest jump
+    private int mTargetPosition = RecyclerView.NO_POSITION;
+    // distance animated by the running jump, it's measured on the first frame after teleport
+    private int mDistance;
+    private boolean mDistanceMeasured;
+
+    SectionSmoothScroller(RecyclerView recyclerView, SectionPrefetcher prefetcher) {
+        mRecyclerView = recyclerView;
+        mLayoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        mPrefetcher = prefetcher;
+        mAnimator.setDuration(JUMP_DURATION_MS);
+        mAnimator.setInterpolator(new DecelerateInterpolator());
+        mAnimator.addUpdateListener(animation -> scrollToProgress((float) animation.getAnimatedValue()));
+        mAnimator.addListener(new AnimatorListenerAdapter() {
+            private boolean mCanceled;
+
+            @Override
+            public void onAnimationStart(Animator animation) {
+                mCanceled = false;
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animation) {
+                mCanceled = true;
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                // the last frame landed before teleport was laid out, snap to target instead
+                if (!mCanceled && !mDistanceMeasured) {
+                    mLayoutManager.scrollToPositionWithOffset(mTargetPosition, 0);
+                }
+            }
+        });
+        // user takes over the list
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    mAnimator.cancel();
+                }
+            }
+        });
+    }
+
+    /**
+     * jump to position, the position ends at the top of list
+     *
+     * @param position target adapter position
+     */
+    void jumpTo(int position) {
+        int childCount = mRecyclerView.getChildCount();
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        // indexer reports the same section on every move, don't restart a running jump
+        if (position == mTargetPosition && (mAnimator.isRunning() || position == first)) {
+            return;
+        }
+        mTargetPosition = position;
+        mAnimator.cancel();
+        if (position < 0 || childCount == 0 || first == RecyclerView.NO_POSITION
+                || position >= mLayoutManager.getItemCount()) {
+            mLayoutManager.scrollToPositionWithOffset(Math.max(position, 0), 0);
+            return;
+        }
+        mRecyclerView.stopScroll();
+        // warm rows which the animation is going to bind, the teleport binds the rest
+        mPrefetcher.warm(position, childCount);
+        // a screen holds as many rows as current children
+        if (Math.abs(position - first) > childCount) {
+            int start = position > first ? position - childCount : position + childCount;
+            mLayoutManager.scrollToPositionWithOffset(start, 0);
+        }
+        mDistanceMeasured = false;
+        mAnimator.start();
+    }
+
+    /**
+     * cancel running jump, for example, when adapter changed
+     */
+    void cancel() {
+        mAnimator.cancel();
+        mTargetPosition = RecyclerView.NO_POSITION;
+        mRecyclerView.stopScroll();
+    }
+
+    /**
+     * scroll so that distance left to target is the part of the jump not due by progress yet
+     *
+     * @param progress interpolated progress of animation, in [0, 1]
+     */
+    private void scrollToProgress(float progress) {
+        // teleport is not laid out yet, the rows measured now are going away
+        if (mRecyclerView.isLayoutRequested() || mRecyclerView.getChildCount() == 0) {
+            return;
+        }
+        int remaining = measureDistance(mTargetPosition);
+        if (!mDistanceMeasured) {
+            mDistance = remaining;
+            mDistanceMeasured = true;
+        }
+        int dy = remaining - Math.round(mDistance * (1.f - progress));
+        if (dy != 0) {
+            mRecyclerView.scrollBy(0, dy);
+        }
+    }
+
+    /**
+     * measure distance from the top of list to position in pixels, exactly if the row of
+     * position is laid out, or by the height of the first row if it isn't
+     */
+    private int measureDistance(int position) {
+        int top = mRecyclerView.getPaddingTop();
+        View target = mLayoutManager.findViewByPosition(position);
+        if (target != null) {
+            return mLayoutManager.getDecoratedTop(target) - top;
+        }
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        View firstView = mLayoutManager.findViewByPosition(first);
+        if (firstView == null) {
+            return 0;
+        }
+        int rowHeight = Math.max(mLayoutManager.getDecoratedMeasuredHeight(firstView), 1);
+        return mLayoutManager.getDecoratedTop(firstView) - top + (position - first) * rowHeight;
+    }
+}
@@ -7,6 +7,7 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
+import android.os.Trace;
 import android.support.annotation.NonNull;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
@@ -17,6 +18,12 @@ import android.view.View;
 import android.widget.LinearLayout;
 import android.widget.SectionIndexer;
 
+import com.ckt.recyclerviewindexer.IndexerMetrics;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This class is used to draw item's sticky header and divider. But now, it only support
  * VERTICAL orientation. If you want to do another, you can extends this class,
@@ -42,6 +49,31 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
     private Paint mHeaderBgPaint;
     // header text paint
     private TextPaint mHeaderTextPaint;
+    // bounds reused by every frame, so that drawing never allocates
+    private final Rect mChildBound = new Rect();
+    private final Rect mTextBound = new Rect();
+
+    // metric names of onDraw and onDrawOver
+    public static final String METRIC_DRAW = "header.draw";
+    public static final String METRIC_DRAW_OVER = "header.drawOver";
+    // metrics which durations are reported to, null if metrics are disabled
+    private IndexerMetrics mMetrics;
+
+    // names of trace sections, they are constants so that tracing never builds strings
+    private static final String TRACE_DRAW_HEADERS = "StickyHeaderDecoration#drawHeaders";
+    private static final String TRACE_DRAW_DIVIDERS = "StickyHeaderDecoration#drawDividers";
+    private static final String TRACE_DRAW_STICKY_HEADER = "StickyHeaderDecoration#drawStickyHeader";
+    private static final String TRACE_SECTION_LOOKUP = "StickyHeaderDecoration#sectionLookup";
+    // whether to emit trace sections
+    private boolean mTracing;
+
+    // whether to draw only header bands within list and skip dividers, for example, while flinging
+    private boolean mLowQuality;
+
+    // counters reported by dump, headers are drawn uncached so there is no cache to report
+    private final AtomicLong mFrameCount = new AtomicLong();
+    private final AtomicLong mSectionLookupCount = new AtomicLong();
+    private final AtomicLong mHeaderCount = new AtomicLong();
 
 
     public StickyHeaderDecoration(Context context, int orientation) {
@@ -127,14 +159,84 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
         }
     }
 
+    /**
+     * set metrics, which receive duration of onDraw and onDrawOver
+     *
+     * @param metrics metrics, or null to disable metrics
+     */
+    public void setMetrics(IndexerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * emit trace sections around drawing and section lookup, which are shown by systrace and Perfetto
+     *
+     * @param enabled true to enable tracing, it's disabled by default
+     */
+    public void setTracing(boolean enabled) {
+        mTracing = enabled;
+    }
+
+    /**
+     * draw headers within list as plain bands without text and skip dividers, sticky header is
+     * always drawn in full so that current section stays readable
+     *
+     * @param lowQuality true to draw headers in low quality
+     */
+    public void setLowQuality(boolean lowQuality) {
+        mLowQuality = lowQuality;
+    }
+
+    /**
+     * print count of frames, section lookups and headers drawn
+     *
+     * @param writer writer to print to
+     * @param prefix prefix of every line
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        long frames = mFrameCount.get();
+        long lookups = mSectionLookupCount.get();
+        long headers = mHeaderCount.get();
+        writer.print(prefix);
+        writer.println(String.format(Locale.US,
+                "StickyHeaderDecoration: frames=%d sectionLookups=%d lookupsPerFrame=%.2f headers=%d headersPerFrame=%.2f",
+                frames, lookups, frames == 0 ? 0.f : (float) lookups / frames,
+                headers, frames == 0 ? 0.f : (float) headers / frames));
+    }
+
+    private void beginTraceSection(String name) {
+        if (mTracing) {
+            Trace.beginSection(name);
+        }
+    }
+
+    private void endTraceSection() {
+        if (mTracing) {
+            Trace.endSection();
+        }
+    }
+
     @Override
     public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        beginTraceSection(TRACE_DRAW_HEADERS);
         if (mOrientation == VERTICAL) {
             drawVerticalHeader(c, parent);
-            drawVerticalDivider(c, parent);
         } else {
             drawHorizontalHeader(c, parent);
-            drawHorizontalDivider(c, parent);
+        }
+        endTraceSection();
+        if (!mLowQuality) {
+            beginTraceSection(TRACE_DRAW_DIVIDERS);
+            if (mOrientation == VERTICAL) {
+                drawVerticalDivider(c, parent);
+            } else {
+                drawHorizontalDivider(c, parent);
+            }
+            endTraceSection();
+        }
+        if (mMetrics != null) {
+            mMetrics.record(METRIC_DRAW, System.nanoTime() - start);
         }
     }
 
@@ -150,8 +252,8 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
             right = parent.getWidth();
         }
 
-        Rect childBound = new Rect();
-        Rect textBound = new Rect();
+        final Rect childBound = mChildBound;
+        final Rect textBound = mTextBound;
         final int childCount = parent.getChildCount();
         for (int i = 0; i < childCount; i++) {
             View child = parent.getChildAt(i);
@@ -159,9 +261,13 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
             int top = childBound.top;
             int currentPos = parent.getChildAdapterPosition(child);
             if (hasHeader(parent, currentPos)) {
+                mHeaderCount.incrementAndGet();
                 int bottom = top + mHeaderHeight;
                 // draw header's background
                 c.drawRect(left, top, right, bottom, mHeaderBgPaint);
+                if (mLowQuality) {
+                    continue;
+                }
                 // draw header text
                 // 1. get section character
                 String section = getSectionCharacter(parent, currentPos);
@@ -184,7 +290,7 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
 
     private void drawVerticalDivider(Canvas canvas, RecyclerView parent) {
         canvas.save();
-        Rect childBound = new Rect();
+        final Rect childBound = mChildBound;
         final int childCount = parent.getChildCount();
         for (int i = 0; i < childCount; i++) {
             final View child = parent.getChildAt(i);
@@ -228,17 +334,29 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
         String sectionChar = null;
         RecyclerView.Adapter adapter = parent.getAdapter();
         if (adapter instanceof SectionIndexer) {
+            beginTraceSection(TRACE_SECTION_LOOKUP);
+            mSectionLookupCount.incrementAndGet();
             SectionIndexer sectionIndexer = (SectionIndexer) adapter;
             int section = sectionIndexer.getSectionForPosition(position);
             sectionChar = (String) sectionIndexer.getSections()[section];
+            endTraceSection();
         }
         return sectionChar;
     }
 
     @Override
     public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
-        c.save();
+        mFrameCount.incrementAndGet();
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        beginTraceSection(TRACE_DRAW_STICKY_HEADER);
+        drawStickyHeader(c, parent);
+        endTraceSection();
+        if (mMetrics != null) {
+            mMetrics.record(METRIC_DRAW_OVER, System.nanoTime() - start);
+        }
+    }
 
+    private void drawStickyHeader(Canvas c, RecyclerView parent) {
         final int left, top, right;
         if (parent.getClipToPadding()) {
             left = parent.getPaddingLeft();
@@ -255,8 +373,9 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
         if (firstVisiblePos == RecyclerView.NO_POSITION) {
             return;
         }
+        c.save();
         View child = layoutManager.findViewByPosition(firstVisiblePos);
-        Rect childBound = new Rect();
+        final Rect childBound = mChildBound;
         parent.getDecoratedBoundsWithMargins(child, childBound);
 
         // decide whether to translate canvas
@@ -274,7 +393,7 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
         c.drawRect(left, top, right, mHeaderHeight, mHeaderBgPaint);
         // draw header text
         String section = getSectionCharacter(parent, firstVisiblePos);
-        Rect textBound = new Rect();
+        final Rect textBound = mTextBound;
         mHeaderTextPaint.getTextBounds(section, 0, section.length(), textBound);
         c.drawText(section,
                 child.getLeft() + child.getPaddingLeft(),
@@ -299,6 +418,7 @@ public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
             RecyclerView.Adapter adapter = parent.getAdapter();
             if (adapter instanceof SectionIndexer) {
                 SectionIndexer sectionIndexer = (SectionIndexer) adapter;
+                mSectionLookupCount.addAndGet(2);
                 int currentSection = sectionIndexer.getSectionForPosition(currentPosition);
                 int preSection = sectionIndexer.getSectionForPosition(currentPosition - 1);
                 if (currentSection != preSection) {
@@ -0,0 +1,238 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.ContactsContract;
+import android.util.Log;
+import android.view.Choreographer;
+import android.widget.ImageView;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is used to load thumbnails of rows in batches instead of one provider round trip
+ * per row.
+ * <p>
+ * Thumbnails requested while a frame is laid out, for example, the first screen or the screen an
+ * indexer jump lands on, are collected until the next frame. Then the whole batch is resolved by
+ * one query of {@link ContactsContract.CommonDataKinds.Photo#PHOTO} on data table by photo id,
+ * off the main thread, and the decoded thumbnails are put into {@link ThumbnailCache} and fanned
+ * out to the image views still waiting for them. Thumbnails without photo id, for example, of
+ * directory contacts, are opened by their uri in the same background pass.
+ *
+ * @author David Chow
+ */
+public class ThumbnailBatchLoader implements Choreographer.FrameCallback {
+    private static final String TAG = "ThumbnailBatchLoader";
+
+    // SQLite allows 999 host parameters per statement
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    // batches are resolved one by one, the provider is never flooded by a burst of jumps
+    private static final ExecutorService sBatchExecutor = Executors.newSingleThreadExecutor();
+
+    private static final String[] PHOTO_PROJECTION = {
+            ContactsContract.Data._ID,
+            ContactsContract.CommonDataKinds.Photo.PHOTO
+    };
+
+    private final ContentResolver mResolver;
+    private final ThumbnailCache mThumbnailCache;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // thumbnail uri each image view waits for, touched on main thread only
+    private final Map<ImageView, String> mTargets = new HashMap<>();
+    // photo id of each thumbnail uri of the next batch, or 0 if it has no photo id
+    private Map<String, Long> mQueued = new LinkedHashMap<>();
+    private boolean mFrameScheduled;
+
+    // count of batches, thumbnails requested, queries of data table and thumbnails opened by uri
+    private final AtomicLong mBatchCount = new AtomicLong();
+    private final AtomicLong mRequestCount = new AtomicLong();
+    private final AtomicLong mQueryCount = new AtomicLong();
+    private final AtomicLong mStreamCount = new AtomicLong();
+
+    ThumbnailBatchLoader(Context context, ThumbnailCache thumbnailCache) {
+        mResolver = context.getApplicationContext().getContentResolver();
+        mThumbnailCache = thumbnailCache;
+    }
+
+    /**
+     * load thumbnail into image view with the next batch, the previous request of view is
+     * replaced. It should be called on main thread after a cache miss.
+     *
+     * @param view         image view which shows placeholder until thumbnail arrives
+     * @param photoId      photo id of contact, or 0 if it's unknown
+     * @param thumbnailUri thumbnail uri of contact
+     */
+    void loadInto(ImageView view, long photoId, String thumbnailUri) {
+        mTargets.put(view, thumbnailUri);
+        enqueue(photoId, thumbnailUri);
+    }
+
+    /**
+     * load thumbnail into cache with the next batch, no view waits for it
+     *
+     * @param photoId      photo id of contact, or 0 if it's unknown
+     * @param thumbnailUri thumbnail uri of contact
+     */
+    void prefetch(long photoId, String thumbnailUri) {
+        enqueue(photoId, thumbnailUri);
+    }
+
+    /**
+     * stop loading into image view, for example, it's recycled or bound to another row
+     *
+     * @param view image view
+     */
+    void cancel(ImageView view) {
+        mTargets.remove(view);
+    }
+
+    private void enqueue(long photoId, String thumbnailUri) {
+        if (mQueued.containsKey(thumbnailUri)) {
+            return;
+        }
+        mQueued.put(thumbnailUri, photoId);
+        mRequestCount.incrementAndGet();
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        Map<String, Long> batch = mQueued;
+        mQueued = new LinkedHashMap<>();
+        mBatchCount.incrementAndGet();
+        sBatchExecutor.execute(() -> {
+            Map<String, Bitmap> thumbnails = loadBatch(batch);
+            mMainHandler.post(() -> deliver(batch.keySet(), thumbnails));
+        });
+    }
+
+    /**
+     * resolve thumbnails of batch, it's called on the batch thread
+     *
+     * @param batch photo id of each thumbnail uri
+     * @return decoded thumbnail of each thumbnail uri, failed ones are absent
+     */
+    private Map<String, Bitmap> loadBatch(Map<String, Long> batch) {
+        Map<String, Bitmap> thumbnails = new HashMap<>(batch.size() * 2);
+        Map<Long, String> uris = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : batch.entrySet()) {
+            if (entry.getValue() > 0) {
+                uris.put(entry.getValue(), entry.getKey());
+            }
+        }
+
+        Long[] photoIds = uris.keySet().toArray(new Long[0]);
+        for (int from = 0; from < photoIds.length; from += MAX_IDS_PER_QUERY) {
+            int to = Math.min(from + MAX_IDS_PER_QUERY, photoIds.length);
+            queryPhotos(photoIds, from, to, uris, thumbnails);
+        }
+
+        // contacts without photo id, or whose photo row wasn't found, are opened one by one
+        for (String thumbnailUri : batch.keySet()) {
+            if (!thumbnails.containsKey(thumbnailUri)) {
+                mStreamCount.incrementAndGet();
+                Bitmap thumbnail = mThumbnailCache.load(thumbnailUri);
+                if (thumbnail != null) {
+                    thumbnails.put(thumbnailUri, thumbnail);
+                }
+            }
+        }
+        return thumbnails;
+    }
+
+    /**
+     * query photo blobs of photoIds[from, to) by one query, and decode them into cache
+     */
+    private void queryPhotos(Long[] photoIds, int from, int to, Map<Long, String> uris,
+                             Map<String, Bitmap> thumbnails) {
+        StringBuilder selection = new StringBuilder(ContactsContract.Data._ID).append(" IN (");
+        String[] selectionArgs = new String[to - from];
+        for (int i = from; i < to; i++) {
+            selection.append(i == from ? "?" : ",?");
+            selectionArgs[i - from] = String.valueOf(photoIds[i]);
+        }
+        selection.append(')');
+
+        mQueryCount.incrementAndGet();
+        Cursor cursor = null;
+        try {
+            cursor = mResolver.query(ContactsContract.Data.CONTENT_URI, PHOTO_PROJECTION,
+                    selection.toString(), selectionArgs, null);
+            while (cursor != null && cursor.moveToNext()) {
+                byte[] photo = cursor.getBlob(1);
+                String thumbnailUri = uris.get(cursor.getLong(0));
+                if (photo == null || thumbnailUri == null) {
+                    continue;
+                }
+                Bitmap thumbnail = BitmapFactory.decodeByteArray(photo, 0, photo.length);
+                if (thumbnail != null) {
+                    mThumbnailCache.put(thumbnailUri, thumbnail);
+                    thumbnails.put(thumbnailUri, thumbnail);
+                }
+            }
+        } catch (RuntimeException e) {
+            // rows of this query are opened by uri instead
+            Log.w(TAG, "failed to query photos", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * show thumbnails of batch in image views still waiting for them, views whose thumbnail
+     * failed keep placeholder. It's called on main thread.
+     */
+    private void deliver(Set<String> batch, Map<String, Bitmap> thumbnails) {
+        Iterator<Map.Entry<ImageView, String>> iterator = mTargets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ImageView, String> target = iterator.next();
+            if (!batch.contains(target.getValue())) {
+                continue;
+            }
+            Bitmap thumbnail = thumbnails.get(target.getValue());
+            if (thumbnail != null) {
+                target.getKey().setImageBitmap(thumbnail);
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * print count of batches, requests and provider round trips
+     *
+     * @param writer writer to print to
+     * @param prefix prefix of every line
+     */
+    void dump(PrintWriter writer, String prefix) {
+        long batches = mBatchCount.get();
+        long requests = mRequestCount.get();
+        writer.print(prefix);
+        writer.println(String.format(Locale.US,
+                "thumbnail batches: batches=%d requests=%d perBatch=%.1f queries=%d streamed=%d waiting=%d",
+                batches, requests, batches == 0 ? 0.f : requests / (float) batches,
+                mQueryCount.get(), mStreamCount.get(), mTargets.size()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.LruCache;
+
+import com.ckt.recyclerviewindexer.CacheRegistry;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Memory cache of decoded contact thumbnails, keyed by thumbnail uri.
+ *
+ * @author David Chow
+ */
+public class ThumbnailCache extends LruCache<String, Bitmap> implements CacheRegistry.TrimmableCache {
+    private Context mContext;
+
+    // use 1/8 of the available memory for thumbnails
+    private static final int MEMORY_FRACTION = 8;
+    // fraction of cache kept when offscreen thumbnails are trimmed, recently used ones are on screen
+    private static final int OFFSCREEN_KEPT_FRACTION = 4;
+
+    ThumbnailCache(Context context) {
+        super((int) (Runtime.getRuntime().maxMemory() / 1024 / MEMORY_FRACTION));
+        mContext = context.getApplicationContext();
+    }
+
+    @Override
+    protected int sizeOf(String key, Bitmap value) {
+        // size in kilobytes
+        return value.getByteCount() / 1024;
+    }
+
+    /**
+     * get thumbnail from cache, decode it from content provider if absent
+     *
+     * @param thumbnailUri thumbnail uri of contact
+     * @return thumbnail, or null if it could not be decoded
+     */
+    Bitmap load(String thumbnailUri) {
+        Bitmap bitmap = get(thumbnailUri);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        try (AssetFileDescriptor afd = mContext.getContentResolver()
+                .openAssetFileDescriptor(Uri.parse(thumbnailUri), "r")) {
+            if (afd != null) {
+                bitmap = BitmapFactory.decodeFileDescriptor(afd.getFileDescriptor());
+            }
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (bitmap != null) {
+            put(thumbnailUri, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * drop least recently used thumbnails, or all of them if UI is hidden, they are decoded
+     * again when bound
+     *
+     * @param tier tier of {@link CacheRegistry}
+     * @return bytes freed
+     */
+    @Override
+    public long trim(int tier) {
+        int before = size();
+        if (tier >= CacheRegistry.TIER_RENDERED) {
+            evictAll();
+        } else {
+            trimToSize(maxSize() / OFFSCREEN_KEPT_FRACTION);
+        }
+        return (before - size()) * 1024L;
+    }
+
+    /**
+     * print size and hit rate of cache
+     *
+     * @param writer writer to print to
+     * @param prefix prefix of every line
+     */
+    void dump(PrintWriter writer, String prefix) {
+        int hits = hitCount();
+        int misses = missCount();
+        writer.print(prefix);
+        writer.println(String.format(Locale.US,
+                "thumbnail cache: %d/%d KB, hits=%d misses=%d evictions=%d hitRate=%.1f%%",
+                size(), maxSize(), hits, misses, evictionCount(),
+                hits + misses == 0 ? 0.f : hits * 100.f / (hits + misses)));
+    }
+}
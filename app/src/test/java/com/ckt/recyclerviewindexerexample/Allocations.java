@@ -0,0 +1,39 @@
+package com.ckt.recyclerviewindexerexample;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counter of bytes allocated by the current thread, which is used to catch allocation in frame
+ * paths. The overhead of reading the counter itself is measured once and subtracted.
+ */
+final class Allocations {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sOverhead = -1;
+
+    private Allocations() {
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far
+     */
+    static long allocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return bytes allocated by a pair of {@link #allocatedBytes()} calls
+     */
+    static long overhead() {
+        if (sOverhead < 0) {
+            long overhead = Long.MAX_VALUE;
+            for (int i = 0; i < 1000; i++) {
+                long before = allocatedBytes();
+                overhead = Math.min(overhead, allocatedBytes() - before);
+            }
+            sOverhead = overhead;
+        }
+        return sOverhead;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import org.robolectric.Robolectric;
+
+/**
+ * Contacts list laid out at a fixed size under Robolectric, which is scrolled frame by frame.
+ */
+class ContactsListHarness {
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 1920;
+    private static final long SEED = 2018;
+
+    final Activity mActivity;
+    // sorted names of rows
+    final String[] mNames;
+    final RecyclerView mRecyclerView;
+    final ContactsAdapter mAdapter;
+    final RecyclerView.State mState = new RecyclerView.State();
+    final Canvas mCanvas = new NoOpCanvas();
+    private int mDirection = 1;
+
+    ContactsListHarness(int contactCount) {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(mActivity);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(mActivity));
+        mAdapter = new ContactsAdapter(mActivity, null);
+        mRecyclerView.setAdapter(mAdapter);
+        mActivity.setContentView(mRecyclerView);
+        mNames = TestContacts.names(contactCount, SEED);
+        mAdapter.swapCursor(TestContacts.cursor(mNames));
+        layout();
+    }
+
+    /**
+     * measure and lay out list at the fixed size, pending scrolls are applied
+     */
+    void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * scroll by dy, the direction is reversed at either end of list
+     *
+     * @param dy distance in pixels
+     */
+    void scroll(int dy) {
+        if (!mRecyclerView.canScrollVertically(mDirection)) {
+            mDirection = -mDirection;
+        }
+        mRecyclerView.scrollBy(0, mDirection * dy);
+    }
+
+    /**
+     * jump to position as indexer listeners do
+     *
+     * @param position adapter position
+     */
+    void jumpTo(int position) {
+        ((LinearLayoutManager) mRecyclerView.getLayoutManager()).scrollToPositionWithOffset(position, 0);
+        layout();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.database.Cursor;
+
+import com.ckt.recyclerviewindexer.SectionClassifier;
+import com.ckt.recyclerviewindexer.SectionTable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of {@link MergedContactsCursor}, sources are merged into one sorted list whose section
+ * table is valid.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class MergedContactsCursorTest {
+
+    @Test
+    public void sourcesAreInterleavedBySection() {
+        // starred contacts all come after the first device contacts
+        Cursor starred = TestContacts.cursor("Zack", "Zed", "Zoe");
+        Cursor device = TestContacts.cursor(TestContacts.names(2000, 7));
+        Cursor sim = TestContacts.cursor("Adam", "Mia", "Zara");
+        MergedContactsCursor merged = new MergedContactsCursor(new Cursor[]{starred, null, device, sim},
+                ContactsQueryInterface.INDEX_NAME);
+        assertEquals(2006, merged.getCount());
+
+        SectionClassifier classifier = new SectionClassifier(ContactsIndexer.DEFAULT_INDEXER_CHARACTERS);
+        Set<String> rows = new HashSet<>();
+        int previousSection = 0;
+        for (int position = 0; merged.moveToPosition(position); position++) {
+            int section = merged.getSectionForPosition(position);
+            assertTrue("sections descend at " + position, section >= previousSection);
+            previousSection = section;
+            assertTrue(position >= merged.getPositionForSection(section));
+            assertTrue(position < merged.getPositionForSection(section) + sizeOf(merged, section));
+            assertEquals(classifier.getSectionForKey(merged.getString(ContactsQueryInterface.INDEX_NAME)),
+                    section);
+
+            // every row of every source appears once
+            Cursor source = merged.getSourceCursor(position);
+            assertTrue(rows.add(System.identityHashCode(source) + "/" + source.getPosition()));
+        }
+        assertEquals(merged.getCount(), rows.size());
+    }
+
+    @Test
+    public void sectionStartsAreSumsOfSourceStarts() {
+        SectionClassifier classifier = new SectionClassifier(ContactsIndexer.DEFAULT_INDEXER_CHARACTERS);
+        String[] firstNames = TestContacts.names(500, 1);
+        String[] secondNames = TestContacts.names(700, 2);
+        SectionTable first = classifier.buildTable(firstNames);
+        SectionTable second = classifier.buildTable(secondNames);
+        MergedContactsCursor merged = new MergedContactsCursor(new Cursor[]{
+                TestContacts.cursor(firstNames), TestContacts.cursor(secondNames)},
+                ContactsQueryInterface.INDEX_NAME);
+        for (int section = 0; section < merged.getSections().length; section++) {
+            assertEquals(first.getPositionForSection(section) + second.getPositionForSection(section),
+                    merged.getPositionForSection(section));
+        }
+    }
+
+    @Test
+    public void noSources() {
+        MergedContactsCursor merged = new MergedContactsCursor(new Cursor[]{null},
+                ContactsQueryInterface.INDEX_NAME);
+        assertEquals(0, merged.getCount());
+        assertEquals(0, merged.getColumnNames().length);
+        assertEquals(0, merged.getPositionForSection(3));
+        assertEquals(0, merged.getSectionForPosition(0));
+    }
+
+    private static int sizeOf(MergedContactsCursor merged, int section) {
+        int end = section + 1 < merged.getSections().length
+                ? merged.getPositionForSection(section + 1) : merged.getCount();
+        return end - merged.getPositionForSection(section);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Canvas which draws nothing, so that measured frames only count work and allocations of
+ * decorations, not of the shadow canvas recording draw calls.
+ */
+class NoOpCanvas extends Canvas {
+
+    @Override
+    public int save() {
+        return 1;
+    }
+
+    @Override
+    public void restore() {
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    }
+
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.os.SystemClock;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+
+import com.ckt.recyclerviewindexer.BalloonIndexer;
+import com.ckt.recyclerviewindexer.ScrubTable;
+import com.ckt.recyclerviewindexer.SimpleIndexer;
+import com.ckt.recyclerviewindexer.SquareIndexer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocation regression test of every {@link SimpleIndexer} subclass, which drags along indexer
+ * through thousands of move events and measures allocations of touch handling and drawing of
+ * every frame, both in section mode and in scrub mode. Wall clock time isn't asserted, it depends
+ * on the machine running the tests. Section math is timed by the benchmarks of indexer-core
+ * instead.
+ * <p>
+ * The measured region of a frame is the move, including section lookup, scrub position and label
+ * lookup, and the hover callback which runs within the move, and drawing. The jump which indexer
+ * commits on a later frame is excluded: its callback is run by the main looper between measured
+ * frames, and so is the layout it causes, because Robolectric's scheduler allocates for every
+ * callback it runs.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SimpleIndexerFrameTest {
+    private static final int CONTACT_COUNT = 5000;
+    private static final int WARM_UP_FRAMES = 500;
+    private static final int FRAMES = 5000;
+    // drag amplitude around the center of indexer in pixels
+    private static final int DRAG_AMPLITUDE = 150;
+    // a String takes more than 40 bytes, so a single allocation per frame breaks the budget
+    private static final long ALLOCATION_BUDGET_BYTES_PER_FRAME = 16;
+    // indexer commits the jump of a move on the next frame, or on the one after it if main
+    // thread hasn't been idle in between
+    private static final long JUMP_DELAY_MS = 2 * 16;
+
+    private ContactsListHarness mHarness;
+    private SimpleIndexer mIndexer;
+    // position selected by the latest move, it's applied between measured frames
+    private int mPendingPosition = -1;
+    private int mJumps;
+    private int mHoveredSection = -1;
+
+    @Before
+    public void setUp() {
+        mHarness = new ContactsListHarness(CONTACT_COUNT);
+    }
+
+    @After
+    public void tearDown() {
+        if (mIndexer != null) {
+            mIndexer.release();
+        }
+    }
+
+    @Test
+    public void balloonIndexerDragFramesStayWithinBudget() {
+        assertDragFramesWithinBudget(new BalloonIndexer(builder()), false);
+    }
+
+    @Test
+    public void squareIndexerDragFramesStayWithinBudget() {
+        assertDragFramesWithinBudget(new SquareIndexer(builder()), false);
+    }
+
+    @Test
+    public void balloonIndexerScrubFramesStayWithinBudget() {
+        assertDragFramesWithinBudget(new BalloonIndexer(builder()), true);
+    }
+
+    @Test
+    public void squareIndexerScrubFramesStayWithinBudget() {
+        assertDragFramesWithinBudget(new SquareIndexer(builder()), true);
+    }
+
+    private SimpleIndexer.Builder builder() {
+        return new SimpleIndexer.Builder(mHarness.mActivity, ContactsIndexer.DEFAULT_INDEXER_CHARACTERS)
+                .padding(SimpleIndexer.DEFAULT_PADDING_DP)
+                .indicatorColor(SimpleIndexer.DEFAULT_INDICATOR_BG_COLOR);
+    }
+
+    private void assertDragFramesWithinBudget(SimpleIndexer indexer, boolean scrub) {
+        mIndexer = indexer;
+        indexer.attachToRecyclerView(mHarness.mRecyclerView, (rv, sectionIndex) -> {
+            mPendingPosition = mHarness.mAdapter.getPositionForSection(sectionIndex);
+            mJumps++;
+        });
+        indexer.setOnSectionHoverListener((rv, sectionIndex) -> mHoveredSection = sectionIndex);
+        indexer.setSectionTable(mHarness.mAdapter.getSectionTable());
+        if (scrub) {
+            // the list is shorter than scrub threshold of the app, the table is built anyway
+            ScrubTable scrubTable = ContactsLoader.buildScrubTable(mHarness.mAdapter.getSectionTable(),
+                    mHarness.mNames);
+            indexer.setScrubTable(scrubTable);
+            indexer.setOnScrubListener((rv, sectionIndex, position) -> {
+                mPendingPosition = position;
+                mJumps++;
+            });
+        }
+
+        // Scrolling translates indexer in, and the first frame places it at the right edge.
+        mHarness.scroll(ContactsListHarness.HEIGHT / 4);
+        ShadowLooper.idleMainLooper(1, TimeUnit.SECONDS);
+        drawFrame();
+
+        float padding = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, SimpleIndexer.DEFAULT_PADDING_DP,
+                mHarness.mActivity.getResources().getDisplayMetrics());
+        float x = ContactsListHarness.WIDTH - padding - 2;
+        float centerY = ContactsListHarness.HEIGHT / 2.f;
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, centerY, 0);
+        mHarness.mRecyclerView.dispatchTouchEvent(down);
+        down.recycle();
+
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            dragFrame(downTime, x, dragY(centerY, i));
+        }
+        assertTrue("Drag doesn't reach indexer", mJumps > 0);
+        assertTrue("Hover isn't reported", mHoveredSection >= 0);
+
+        long overhead = Allocations.overhead();
+        long allocated = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            MotionEvent move = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(),
+                    MotionEvent.ACTION_MOVE, x, dragY(centerY, i), 0);
+            long before = Allocations.allocatedBytes();
+            mHarness.mRecyclerView.dispatchTouchEvent(move);
+            drawFrame();
+            allocated += Allocations.allocatedBytes() - before - overhead;
+            move.recycle();
+            applyPendingJump();
+        }
+
+        long bytesPerFrame = allocated / FRAMES;
+        String name = indexer.getClass().getSimpleName() + (scrub ? " in scrub mode" : "");
+        assertTrue(name + " allocates " + bytesPerFrame + " bytes per frame",
+                bytesPerFrame <= ALLOCATION_BUDGET_BYTES_PER_FRAME);
+    }
+
+    /**
+     * Y axis of a drag frame, it sweeps up and down across indexer.
+     */
+    private static float dragY(float centerY, int frame) {
+        int phase = frame % (DRAG_AMPLITUDE * 4);
+        int offset = phase < DRAG_AMPLITUDE * 2 ? phase : DRAG_AMPLITUDE * 4 - phase;
+        return centerY - DRAG_AMPLITUDE + offset;
+    }
+
+    private void dragFrame(long downTime, float x, float y) {
+        MotionEvent move = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(),
+                MotionEvent.ACTION_MOVE, x, y, 0);
+        mHarness.mRecyclerView.dispatchTouchEvent(move);
+        move.recycle();
+        drawFrame();
+        applyPendingJump();
+    }
+
+    private void drawFrame() {
+        mIndexer.onDrawOver(mHarness.mCanvas, mHarness.mRecyclerView, mHarness.mState);
+    }
+
+    private void applyPendingJump() {
+        ShadowLooper.idleMainLooper(JUMP_DELAY_MS, TimeUnit.MILLISECONDS);
+        if (mPendingPosition >= 0) {
+            mHarness.jumpTo(mPendingPosition);
+            mPendingPosition = -1;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocation regression test of {@link StickyHeaderDecoration}, which scrolls contacts list
+ * through thousands of frames and measures allocations of drawing every frame. Wall clock time
+ * isn't asserted, it depends on the machine running the tests.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class StickyHeaderDecorationFrameTest {
+    private static final int CONTACT_COUNT = 5000;
+    private static final int WARM_UP_FRAMES = 500;
+    private static final int FRAMES = 5000;
+    // not a multiple of row height, so that headers are pushed at every offset
+    private static final int SCROLL_STEP = 37;
+    // a Rect takes 32 bytes, so a single allocation per frame breaks the budget
+    private static final long ALLOCATION_BUDGET_BYTES_PER_FRAME = 16;
+
+    private ContactsListHarness mHarness;
+    private StickyHeaderDecoration mDecoration;
+
+    @Before
+    public void setUp() {
+        mHarness = new ContactsListHarness(CONTACT_COUNT);
+        mDecoration = new StickyHeaderDecoration(mHarness.mActivity, StickyHeaderDecoration.VERTICAL);
+        // plain color divider, so that frames don't measure nine patch of theme
+        mDecoration.setDrawable(new ColorDrawable(Color.GRAY) {
+            @Override
+            public int getIntrinsicHeight() {
+                return 1;
+            }
+        });
+        mHarness.mRecyclerView.addItemDecoration(mDecoration);
+        mHarness.layout();
+    }
+
+    @Test
+    public void scrollFramesStayWithinBudget() {
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            mHarness.scroll(SCROLL_STEP);
+            drawFrame();
+        }
+
+        long overhead = Allocations.overhead();
+        long allocated = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            mHarness.scroll(SCROLL_STEP);
+            long before = Allocations.allocatedBytes();
+            drawFrame();
+            allocated += Allocations.allocatedBytes() - before - overhead;
+        }
+
+        long bytesPerFrame = allocated / FRAMES;
+        assertTrue("Decoration allocates " + bytesPerFrame + " bytes per frame",
+                bytesPerFrame <= ALLOCATION_BUDGET_BYTES_PER_FRAME);
+    }
+
+    private void drawFrame() {
+        mDecoration.onDraw(mHarness.mCanvas, mHarness.mRecyclerView, mHarness.mState);
+        mDecoration.onDrawOver(mHarness.mCanvas, mHarness.mRecyclerView, mHarness.mState);
+    }
+}
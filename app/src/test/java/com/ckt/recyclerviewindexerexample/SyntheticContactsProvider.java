@@ -0,0 +1,338 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.content.ContentProvider;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.UriMatcher;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.provider.BaseColumns;
+import android.provider.ContactsContract;
+
+import com.ckt.recyclerviewindexer.SectionClassifier;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test-only stand-in of contacts provider, which serves synthetic address books of any size with
+ * stable timings. It's registered under {@link ContactsContract#AUTHORITY}, so that
+ * {@link ContactsLoader}, {@link ContactsAdapter} and {@link ContactsIndexer} run against it
+ * unchanged under Robolectric.
+ * <p>
+ * It serves the columns of {@link ContactsQueryInterface#PROJECTION} sorted by sort key, the
+ * count column, the address book index extras, and synthetic thumbnails. Selection and sort order of queries are
+ * ignored. Photo ids are set, but data table isn't served, so thumbnails are always opened by
+ * their uri.
+ */
+class SyntheticContactsProvider extends ContentProvider {
+
+    /**
+     * Script of a synthetic name.
+     */
+    enum Script {
+        LATIN('a', 26),
+        GREEK('\u03b1', 25),
+        CYRILLIC('\u0430', 32),
+        CJK('\u4e00', 2000),
+        // phone number saved as name, for example, "555 0123"
+        DIGIT('0', 10);
+
+        final char mFirst;
+        final int mCount;
+
+        Script(char first, int count) {
+            mFirst = first;
+            mCount = count;
+        }
+    }
+
+    /**
+     * Spec of synthetic address book, the same spec always generates the same contacts.
+     */
+    static class Spec {
+        int mRowCount = 1000;
+        Map<Script, Integer> mScriptWeights = new LinkedHashMap<>();
+        float mNameLengthMean = 8;
+        float mNameLengthDeviation = 3;
+        float mPhotoRatio = 0.5f;
+        long mSeed = 2018;
+
+        public Spec() {
+            mScriptWeights.put(Script.LATIN, 1);
+        }
+
+        public Spec rowCount(int count) {
+            mRowCount = Math.max(count, 0);
+            return this;
+        }
+
+        /**
+         * Set weight of a script within locale mix, for example, 80 for LATIN and 20 for CJK.
+         */
+        public Spec script(Script script, int weight) {
+            if (weight > 0) {
+                mScriptWeights.put(script, weight);
+            } else {
+                mScriptWeights.remove(script);
+            }
+            return this;
+        }
+
+        /**
+         * Set normal distribution of name length in characters, lengths are at least 1.
+         */
+        public Spec nameLength(float mean, float deviation) {
+            mNameLengthMean = mean;
+            mNameLengthDeviation = deviation;
+            return this;
+        }
+
+        /**
+         * Set ratio of contacts having a thumbnail, in [0, 1].
+         */
+        public Spec photoRatio(float ratio) {
+            mPhotoRatio = Math.max(Math.min(ratio, 1), 0);
+            return this;
+        }
+
+        public Spec seed(long seed) {
+            mSeed = seed;
+            return this;
+        }
+    }
+
+    // size of synthetic thumbnail in pixels
+    private static final int THUMBNAIL_SIZE = 96;
+
+    private static final int CONTACTS = 1;
+    private static final int CONTACT_PHOTO = 2;
+    private static final UriMatcher sUriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
+
+    static {
+        sUriMatcher.addURI(ContactsContract.AUTHORITY, "contacts", CONTACTS);
+        sUriMatcher.addURI(ContactsContract.AUTHORITY, "contacts/#/photo", CONTACT_PHOTO);
+    }
+
+    private Spec mSpec = new Spec();
+
+    // generated rows sorted by sort key, null until the first query
+    private Object[][] mRows;
+    private String[] mIndexTitles;
+    private int[] mIndexCounts;
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    /**
+     * Set spec of address book, contacts are generated again at the next query.
+     *
+     * @param spec spec of address book
+     */
+    public synchronized void setSpec(Spec spec) {
+        mSpec = spec;
+        mRows = null;
+    }
+
+    @Override
+    public synchronized Cursor query(Uri uri, String[] projection, String selection,
+                                     String[] selectionArgs, String sortOrder) {
+        if (sUriMatcher.match(uri) != CONTACTS) {
+            return null;
+        }
+        if (mRows == null) {
+            generate();
+        }
+        if (projection == null) {
+            projection = ContactsQueryInterface.PROJECTION;
+        }
+        if (projection.length == 1 && BaseColumns._COUNT.equals(projection[0])) {
+            // count column of contacts provider, a single row of COUNT(*)
+            MatrixCursor count = new MatrixCursor(projection, 1);
+            count.addRow(new Object[]{mRows.length});
+            return count;
+        }
+        int[] columns = new int[projection.length];
+        List<String> allColumns = Arrays.asList(ContactsQueryInterface.PROJECTION);
+        for (int i = 0; i < projection.length; i++) {
+            columns[i] = allColumns.indexOf(projection[i]);
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("Unsupported column " + projection[i]);
+            }
+        }
+
+        MatrixCursor cursor = new MatrixCursor(projection, mRows.length);
+        Object[] values = new Object[projection.length];
+        for (Object[] row : mRows) {
+            for (int i = 0; i < columns.length; i++) {
+                values[i] = row[columns[i]];
+            }
+            cursor.addRow(values);
+        }
+        if (uri.getBooleanQueryParameter(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX, false)) {
+            Bundle extras = new Bundle();
+            extras.putStringArray(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX_TITLES, mIndexTitles);
+            extras.putIntArray(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX_COUNTS, mIndexCounts);
+            cursor.setExtras(extras);
+        }
+        cursor.setNotificationUri(getContext().getContentResolver(), uri);
+        return cursor;
+    }
+
+    /**
+     * generate contacts of spec, sorted the way contacts provider sorts them: other scripts first,
+     * then Latin names, then numbers
+     */
+    private void generate() {
+        Spec spec = mSpec;
+        Random random = new Random(spec.mSeed);
+        Script[] scripts = spec.mScriptWeights.keySet().toArray(new Script[0]);
+        int totalWeight = 0;
+        for (int weight : spec.mScriptWeights.values()) {
+            totalWeight += weight;
+        }
+
+        String[] names = new String[spec.mRowCount];
+        Script[] nameScripts = new Script[spec.mRowCount];
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            int pick = random.nextInt(Math.max(totalWeight, 1));
+            Script script = scripts.length > 0 ? scripts[0] : Script.LATIN;
+            for (Script candidate : scripts) {
+                pick -= spec.mScriptWeights.get(candidate);
+                if (pick < 0) {
+                    script = candidate;
+                    break;
+                }
+            }
+            int length = (int) Math.round(spec.mNameLengthMean + random.nextGaussian() * spec.mNameLengthDeviation);
+            length = Math.max(length, 1);
+            name.setLength(0);
+            for (int j = 0; j < length; j++) {
+                if (script == Script.DIGIT && j == 3 && length > 4) {
+                    name.append(' ');
+                } else {
+                    name.append((char) (script.mFirst + random.nextInt(script.mCount)));
+                }
+            }
+            name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+            names[i] = name.toString();
+            nameScripts[i] = script;
+        }
+
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        SectionClassifier classifier = new SectionClassifier(ContactsIndexer.DEFAULT_INDEXER_CHARACTERS);
+        Arrays.sort(order, (a, b) -> {
+            int section = classifier.getSectionForKey(names[a]) - classifier.getSectionForKey(names[b]);
+            return section != 0 ? section : names[a].compareToIgnoreCase(names[b]);
+        });
+
+        mRows = new Object[names.length][];
+        List<String> titles = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < order.length; i++) {
+            long id = i + 1;
+            String sortedName = names[order[i]];
+            String photo = random.nextFloat() < spec.mPhotoRatio
+                    ? ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI, id)
+                    .buildUpon().appendPath(ContactsContract.Contacts.Photo.CONTENT_DIRECTORY).toString()
+                    : null;
+            Long photoId = photo != null ? id : null;
+            mRows[i] = new Object[]{id, sortedName, "synthetic" + id, photo, sortedName, photoId};
+
+            // address book index, contiguous runs of the same title
+            String title = getIndexTitle(sortedName, nameScripts[order[i]]);
+            int last = titles.size() - 1;
+            if (last >= 0 && titles.get(last).equals(title)) {
+                counts.set(last, counts.get(last) + 1);
+            } else {
+                titles.add(title);
+                counts.add(1);
+            }
+        }
+        mIndexTitles = titles.toArray(new String[titles.size()]);
+        mIndexCounts = new int[counts.size()];
+        for (int i = 0; i < mIndexCounts.length; i++) {
+            mIndexCounts[i] = counts.get(i);
+        }
+    }
+
+    private static String getIndexTitle(String name, Script script) {
+        switch (script) {
+            case DIGIT:
+                return "#";
+            case CJK:
+                return "\u2026";
+            default:
+                return name.substring(0, 1).toUpperCase(Locale.ROOT);
+        }
+    }
+
+    @Override
+    public ParcelFileDescriptor openFile(Uri uri, String mode) throws FileNotFoundException {
+        if (sUriMatcher.match(uri) != CONTACT_PHOTO) {
+            throw new FileNotFoundException(uri.toString());
+        }
+        long id = Long.parseLong(uri.getPathSegments().get(1));
+        File file = new File(getContext().getCacheDir(), "synthetic_thumbnail_" + id + ".png");
+        if (!file.exists()) {
+            // a flat color per contact, so that every thumbnail decodes to a distinct bitmap
+            Bitmap bitmap = Bitmap.createBitmap(THUMBNAIL_SIZE, THUMBNAIL_SIZE, Bitmap.Config.ARGB_8888);
+            bitmap.eraseColor(Color.HSVToColor(new float[]{id * 37 % 360, 0.5f, 0.9f}));
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } catch (IOException e) {
+                throw new FileNotFoundException(e.getMessage());
+            } finally {
+                bitmap.recycle();
+            }
+        }
+        return ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        switch (sUriMatcher.match(uri)) {
+            case CONTACTS:
+                return ContactsContract.Contacts.CONTENT_TYPE;
+            case CONTACT_PHOTO:
+                return "image/png";
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        throw new UnsupportedOperationException("Synthetic contacts are read only");
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Synthetic contacts are read only");
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Synthetic contacts are read only");
+    }
+}
@@ -0,0 +1,158 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.app.Activity;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.os.Bundle;
+import android.provider.BaseColumns;
+import android.provider.ContactsContract;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads a large synthetic address book through {@link ContactsLoader}, {@link ContactsAdapter}
+ * and {@link ContactsIndexer} unchanged, and checks that they agree on rows and sections.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class SyntheticContactsProviderTest {
+    private static final int CONTACT_COUNT = 50000;
+
+    private Activity mActivity;
+    private SyntheticContactsProvider mProvider;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mProvider = Robolectric.buildContentProvider(SyntheticContactsProvider.class)
+                .create(ContactsContract.AUTHORITY).get();
+        mProvider.setSpec(new SyntheticContactsProvider.Spec()
+                .rowCount(CONTACT_COUNT)
+                .script(SyntheticContactsProvider.Script.LATIN, 80)
+                .script(SyntheticContactsProvider.Script.CJK, 10)
+                .script(SyntheticContactsProvider.Script.CYRILLIC, 5)
+                .script(SyntheticContactsProvider.Script.DIGIT, 5)
+                .nameLength(12, 4)
+                .photoRatio(0.3f));
+    }
+
+    @Test
+    public void loaderAdapterAndIndexerRunOverSyntheticContacts() {
+        ContactsLoader loader = new ContactsLoader(mActivity);
+        ContactsSnapshot snapshot = loader.loadInBackground();
+        assertNotNull(snapshot);
+        Cursor cursor = snapshot.getCursor();
+        assertNotNull(cursor);
+        ContactsAdapter adapter = new ContactsAdapter(mActivity, null);
+        adapter.swapCursor(cursor, snapshot.getSectionTable(), snapshot.getScrubTable(),
+                snapshot.getPrefixIndex());
+        // the list is long enough for scrub mode
+        assertNotNull(snapshot.getScrubTable());
+        assertTrue(adapter.getScrubTable() == snapshot.getScrubTable());
+
+        assertEquals(CONTACT_COUNT, cursor.getCount());
+        assertEquals(CONTACT_COUNT, adapter.getItemCount());
+        assertEquals(CONTACT_COUNT, snapshot.getSectionTable().getItemCount());
+        assertNotNull(snapshot.getSearchIndex());
+        assertNotNull(snapshot.getDialpadIndex());
+        // trimming makes a new snapshot of the same cursor, the delivered one is never changed
+        ContactsSnapshot trimmed = snapshot.withoutSearchIndexes();
+        assertTrue(trimmed.getCursor() == cursor);
+        assertNull(trimmed.getSearchIndex());
+        assertNotNull(snapshot.getSearchIndex());
+
+        // rows are sorted as contacts provider sorts them, so sections never go back
+        ContactsIndexer indexer = new ContactsIndexer(cursor, ContactsQueryInterface.INDEX_NAME);
+        int previous = 0;
+        for (int position = 0; position < CONTACT_COUNT; position++) {
+            int section = indexer.getSectionForPosition(position);
+            assertTrue("Section goes back at " + position, section >= previous);
+            assertEquals(section, adapter.getSectionForPosition(position));
+            previous = section;
+        }
+        for (int section = 0; section < indexer.getSections().length; section++) {
+            int position = indexer.getPositionForSection(section);
+            assertTrue(position == CONTACT_COUNT || indexer.getSectionForPosition(position) >= section);
+        }
+    }
+
+    @Test
+    public void addressBookIndexExtrasCoverAllRows() {
+        Cursor cursor = mActivity.getContentResolver().query(ContactsContract.Contacts.CONTENT_URI.buildUpon()
+                        .appendQueryParameter(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX, "true").build(),
+                ContactsQueryInterface.PROJECTION, null, null, null);
+        assertNotNull(cursor);
+        Bundle extras = cursor.getExtras();
+        String[] titles = extras.getStringArray(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX_TITLES);
+        int[] counts = extras.getIntArray(ContactsContract.Contacts.EXTRA_ADDRESS_BOOK_INDEX_COUNTS);
+        assertNotNull(titles);
+        assertNotNull(counts);
+        assertEquals(titles.length, counts.length);
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            // titles are contiguous runs, a title never repeats right after itself
+            assertTrue("Empty run of " + titles[i], counts[i] > 0);
+            assertTrue(i == 0 || !titles[i].equals(titles[i - 1]));
+            total += counts[i];
+        }
+        assertEquals(CONTACT_COUNT, total);
+        cursor.close();
+    }
+
+    @Test
+    public void countColumnCountsAllRows() {
+        Cursor cursor = mActivity.getContentResolver().query(ContactsContract.Contacts.CONTENT_URI,
+                new String[]{BaseColumns._COUNT}, null, null, null);
+        assertNotNull(cursor);
+        assertEquals(1, cursor.getCount());
+        assertTrue(cursor.moveToFirst());
+        assertEquals(CONTACT_COUNT, cursor.getInt(0));
+        cursor.close();
+    }
+
+    @Test
+    public void projectionIsHonoured() {
+        Cursor cursor = mActivity.getContentResolver().query(ContactsContract.Contacts.CONTENT_URI,
+                new String[]{ContactsContract.Contacts.DISPLAY_NAME_PRIMARY}, null, null, null);
+        assertNotNull(cursor);
+        assertEquals(1, cursor.getColumnCount());
+        assertTrue(cursor.moveToFirst());
+        assertNotNull(cursor.getString(0));
+        cursor.close();
+    }
+
+    @Test
+    public void thumbnailsDecodeThroughCache() {
+        mProvider.setSpec(new SyntheticContactsProvider.Spec().rowCount(100).photoRatio(1));
+        Cursor cursor = mActivity.getContentResolver().query(ContactsContract.Contacts.CONTENT_URI,
+                ContactsQueryInterface.PROJECTION, null, null, null);
+        assertNotNull(cursor);
+        assertTrue(cursor.moveToFirst());
+        String thumbnailUri = cursor.getString(ContactsQueryInterface.INDEX_PHOTO);
+        assertNotNull(thumbnailUri);
+        cursor.close();
+
+        ThumbnailCache cache = new ThumbnailCache(mActivity);
+        Bitmap thumbnail = cache.load(thumbnailUri);
+        assertNotNull(thumbnail);
+        assertTrue(cache.load(thumbnailUri) == thumbnail);
+
+        mProvider.setSpec(new SyntheticContactsProvider.Spec().rowCount(100).photoRatio(0));
+        cursor = mActivity.getContentResolver().query(ContactsContract.Contacts.CONTENT_URI,
+                ContactsQueryInterface.PROJECTION, null, null, null);
+        assertNotNull(cursor);
+        assertTrue(cursor.moveToFirst());
+        assertNull(cursor.getString(ContactsQueryInterface.INDEX_PHOTO));
+        cursor.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.ckt.recyclerviewindexerexample;
+
+import android.database.MatrixCursor;
+
+import com.ckt.recyclerviewindexer.SectionClassifier;
+import com.ckt.recyclerviewindexer.SyntheticNames;
+
+/**
+ * Synthetic contacts sorted the way contacts provider sorts them: symbols first, then letters,
+ * then digits.
+ */
+final class TestContacts {
+
+    private TestContacts() {
+    }
+
+    /**
+     * generate sorted names, see {@link SyntheticNames}
+     *
+     * @param count count of names
+     * @param seed  seed of random, the same seed generates the same names
+     * @return sorted names
+     */
+    static String[] names(int count, long seed) {
+        return SyntheticNames.generate(count, seed,
+                new SectionClassifier(ContactsIndexer.DEFAULT_INDEXER_CHARACTERS));
+    }
+
+    /**
+     * build cursor of contacts with {@link ContactsQueryInterface#PROJECTION}
+     *
+     * @param count count of contacts
+     * @param seed  seed of random
+     * @return cursor sorted by name
+     */
+    static MatrixCursor cursor(int count, long seed) {
+        return cursor(names(count, seed));
+    }
+
+    /**
+     * build cursor of contacts with {@link ContactsQueryInterface#PROJECTION}
+     *
+     * @param names sorted names
+     * @return cursor of names
+     */
+    static MatrixCursor cursor(String... names) {
+        MatrixCursor cursor = new MatrixCursor(ContactsQueryInterface.PROJECTION, names.length);
+        for (int i = 0; i < names.length; i++) {
+            cursor.addRow(new Object[]{(long) i, names[i], "lookup" + i, null, names[i], null});
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ckt.recyclerviewindexer.benchmark;
+
+import com.ckt.recyclerviewindexer.HitTest;
+import com.ckt.recyclerviewindexer.SectionClassifier;
+import com.ckt.recyclerviewindexer.SectionTable;
+import com.ckt.recyclerviewindexer.SyntheticNames;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmarks of index build, position/section lookups and touch-to-section resolution over
+ * synthetic data sets. Lookups read inputs prepared in setup, so they allocate nothing.
+ */
+@State(Scope.Benchmark)
+public class SectionIndexBenchmark {
+
+    private static final String INDEXER_STRING = "%ABCDEFGHIJKLMNOPQRSTUVWXYZ#";
+
+    /**
+     * Count of prepared inputs, a power of two.
+     */
+    private static final int INPUT_COUNT = 1024;
+
+    /**
+     * Height of a cell of indexer in pixels.
+     */
+    private static final float CELL_HEIGHT = 48;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private SectionClassifier mClassifier;
+    private String[] mNames;
+    private SectionTable mTable;
+    private ForkJoinPool mPool;
+
+    private int[] mPositions = new int[INPUT_COUNT];
+    private int[] mSections = new int[INPUT_COUNT];
+    private float[] mTouches = new float[INPUT_COUNT];
+    private int[] mVisibleSections;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        mClassifier = new SectionClassifier(INDEXER_STRING);
+        mNames = SyntheticNames.generate(size, 42, mClassifier);
+        mTable = mClassifier.buildTable(mNames);
+        mPool = new ForkJoinPool();
+
+        int sectionCount = mClassifier.getSectionCount();
+        mVisibleSections = new int[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            mVisibleSections[i] = i;
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            mPositions[i] = random.nextInt(size);
+            mSections[i] = random.nextInt(sectionCount);
+            mTouches[i] = random.nextFloat() * CELL_HEIGHT * (sectionCount + 1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mPool.shutdown();
+    }
+
+    private int next() {
+        return mNext++ & (INPUT_COUNT - 1);
+    }
+
+    @Benchmark
+    public SectionTable buildIndex() {
+        return mClassifier.buildTable(mNames);
+    }
+
+    @Benchmark
+    public SectionTable buildIndexParallel() {
+        return mClassifier.buildTable(mNames, mPool);
+    }
+
+    @Benchmark
+    public int classifyKey() {
+        return mClassifier.getSectionForKey(mNames[mPositions[next()]]);
+    }
+
+    @Benchmark
+    public int getSectionForPosition() {
+        return mTable.getSectionForPosition(mPositions[next()]);
+    }
+
+    @Benchmark
+    public int getPositionForSection() {
+        return mTable.getPositionForSection(mSections[next()]);
+    }
+
+    @Benchmark
+    public int touchToSection() {
+        return HitTest.getSection(mTouches[next()], 0, CELL_HEIGHT, mVisibleSections, mVisibleSections.length);
+    }
+}
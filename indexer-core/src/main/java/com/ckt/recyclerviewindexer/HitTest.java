@@ -0,0 +1,52 @@
+package com.ckt.recyclerviewindexer;
+
+/**
+ * Hit test of indexer, which maps touch to a cell of a column of cells, for example, sections
+ * of indexer or prefixes of prefix strip.
+ */
+public final class HitTest {
+
+    private HitTest() {
+    }
+
+    /**
+     * Map touch to offset in cells. The first cell is centered half a cell below top, so the
+     * integer part is the touched cell and the fractional part is the position within cell.
+     *
+     * @param y          Y axis of touch.
+     * @param top        top of column.
+     * @param cellHeight height of a cell.
+     * @return offset in cells.
+     */
+    public static float getCellOffset(float y, float top, float cellHeight) {
+        return (y - top - cellHeight / 2.f) / cellHeight;
+    }
+
+    /**
+     * Map offset in cells to cell.
+     *
+     * @param cellOffset offset in cells.
+     * @param cellCount  count of cells.
+     * @return index of cell inside [0, cellCount - 1].
+     */
+    public static int getCell(float cellOffset, int cellCount) {
+        return Math.max(Math.min((int) cellOffset, cellCount - 1), 0);
+    }
+
+    /**
+     * Map touch to section.
+     *
+     * @param y               Y axis of touch.
+     * @param top             top of indexer.
+     * @param cellHeight      height of a cell.
+     * @param visibleSections section of each visible cell.
+     * @param visibleCount    count of visible cells.
+     * @return index of section, or -1 if no cell is visible.
+     */
+    public static int getSection(float y, float top, float cellHeight, int[] visibleSections, int visibleCount) {
+        if (visibleCount == 0) {
+            return -1;
+        }
+        return visibleSections[getCell(getCellOffset(y, top, cellHeight), visibleCount)];
+    }
+}
@@ -0,0 +1,210 @@
+package com.ckt.recyclerviewindexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of name prefixes, for example, "Sa", "Sc" and "Sm", which is built once per
+ * data snapshot and used by hierarchical mode of {@code SimpleIndexer}.
+ * <p>
+ * Start position of a prefix is resolved by binary search in O(log n), n is count of distinct
+ * prefixes. The most populated prefixes of each section are chosen when the index is built.
+ */
+public class PrefixIndex {
+
+    /**
+     * Default length of prefix.
+     */
+    public static final int DEFAULT_PREFIX_LENGTH = 2;
+
+    /**
+     * Default count of prefixes shown for a section.
+     */
+    public static final int DEFAULT_TOP_COUNT = 8;
+
+    /**
+     * Distinct prefixes sorted by {@link String#compareTo(String)}, and their start positions.
+     */
+    private final String[] mSortedPrefixes;
+    private final int[] mSortedStarts;
+
+    /**
+     * The most populated prefixes of each section, in list order.
+     */
+    private final String[][] mTopPrefixes;
+
+    private PrefixIndex(String[] sortedPrefixes, int[] sortedStarts, String[][] topPrefixes) {
+        mSortedPrefixes = sortedPrefixes;
+        mSortedStarts = sortedStarts;
+        mTopPrefixes = topPrefixes;
+    }
+
+    /**
+     * Normalize key to prefix, the first character is upper case and the others are lower case.
+     *
+     * @param key    sorted key, for example, contact's name.
+     * @param length length of prefix.
+     * @return prefix, or null if key is empty.
+     */
+    public static String normalize(String key, int length) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        String prefix = key.substring(0, Math.min(key.length(), length));
+        return prefix.substring(0, 1).toUpperCase() + prefix.substring(1).toLowerCase();
+    }
+
+    /**
+     * Get start position of prefix by binary search.
+     *
+     * @param prefix normalized prefix.
+     * @return start position, or -1 if prefix is absent.
+     */
+    public int getPositionForPrefix(String prefix) {
+        int index = Arrays.binarySearch(mSortedPrefixes, prefix);
+        return index >= 0 ? mSortedStarts[index] : -1;
+    }
+
+    /**
+     * @param section index of section.
+     * @return count of the most populated prefixes of section.
+     */
+    public int getTopPrefixCount(int section) {
+        if (section < 0 || section >= mTopPrefixes.length) {
+            return 0;
+        }
+        return mTopPrefixes[section].length;
+    }
+
+    /**
+     * @param section index of section.
+     * @param index   index within the most populated prefixes of section.
+     * @return prefix.
+     */
+    public String getTopPrefix(int section, int index) {
+        return mTopPrefixes[section][index];
+    }
+
+    /**
+     * Builder of prefix index, keys must be added in list order.
+     */
+    public static class Builder {
+        private SectionTable mSectionTable;
+        private int mPrefixLength = DEFAULT_PREFIX_LENGTH;
+        private int mTopCount = DEFAULT_TOP_COUNT;
+
+        /**
+         * Runs of equal prefixes in list order.
+         */
+        private List<String> mRunPrefixes = new ArrayList<>();
+        private List<int[]> mRuns = new ArrayList<>(); // {start, count}
+        private int mPosition;
+
+        /**
+         * @param sectionTable section table of the same data set.
+         */
+        public Builder(SectionTable sectionTable) {
+            mSectionTable = sectionTable;
+        }
+
+        public Builder prefixLength(int length) {
+            mPrefixLength = Math.max(length, 1);
+            return this;
+        }
+
+        public Builder topCount(int count) {
+            mTopCount = Math.max(count, 1);
+            return this;
+        }
+
+        /**
+         * Add key of the next position.
+         *
+         * @param key sorted key, for example, contact's name.
+         * @return this builder.
+         */
+        public Builder add(String key) {
+            String prefix = normalize(key, mPrefixLength);
+            int last = mRuns.size() - 1;
+            if (prefix != null) {
+                if (last >= 0 && prefix.equals(mRunPrefixes.get(last))) {
+                    mRuns.get(last)[1]++;
+                } else {
+                    mRunPrefixes.add(prefix);
+                    mRuns.add(new int[]{mPosition, 1});
+                }
+            }
+            mPosition++;
+            return this;
+        }
+
+        public PrefixIndex build() {
+            // Merge runs of the same prefix, which may be split by collation of sorted key.
+            Map<String, int[]> merged = new HashMap<>();
+            List<String> order = new ArrayList<>();
+            for (int i = 0; i < mRuns.size(); i++) {
+                String prefix = mRunPrefixes.get(i);
+                int[] run = mRuns.get(i);
+                int[] total = merged.get(prefix);
+                if (total == null) {
+                    merged.put(prefix, new int[]{run[0], run[1]});
+                    order.add(prefix);
+                } else {
+                    total[1] += run[1];
+                }
+            }
+
+            String[] sortedPrefixes = order.toArray(new String[order.size()]);
+            Arrays.sort(sortedPrefixes);
+            int[] sortedStarts = new int[sortedPrefixes.length];
+            for (int i = 0; i < sortedPrefixes.length; i++) {
+                sortedStarts[i] = merged.get(sortedPrefixes[i])[0];
+            }
+
+            // Group prefixes by section, they are in list order already.
+            int sectionCount = mSectionTable.getSectionCount();
+            List<List<String>> sections = new ArrayList<>(sectionCount);
+            for (int i = 0; i < sectionCount; i++) {
+                sections.add(new ArrayList<String>());
+            }
+            for (String prefix : order) {
+                int section = mSectionTable.getSectionForPosition(merged.get(prefix)[0]);
+                sections.get(section).add(prefix);
+            }
+
+            String[][] topPrefixes = new String[sectionCount][];
+            for (int i = 0; i < sectionCount; i++) {
+                topPrefixes[i] = top(sections.get(i), merged);
+            }
+            return new PrefixIndex(sortedPrefixes, sortedStarts, topPrefixes);
+        }
+
+        /**
+         * Choose the most populated prefixes and keep them in list order.
+         */
+        private String[] top(List<String> prefixes, final Map<String, int[]> merged) {
+            List<String> top = new ArrayList<>(prefixes);
+            if (top.size() > mTopCount) {
+                Collections.sort(top, new Comparator<String>() {
+                    @Override
+                    public int compare(String a, String b) {
+                        return merged.get(b)[1] - merged.get(a)[1];
+                    }
+                });
+                top = top.subList(0, mTopCount);
+                Collections.sort(top, new Comparator<String>() {
+                    @Override
+                    public int compare(String a, String b) {
+                        return merged.get(a)[0] - merged.get(b)[0];
+                    }
+                });
+            }
+            return top.toArray(new String[top.size()]);
+        }
+    }
+}
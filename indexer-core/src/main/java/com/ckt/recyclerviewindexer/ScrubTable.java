@@ -0,0 +1,99 @@
+package com.ckt.recyclerviewindexer;
+
+/**
+ * Precomputed table used by scrub mode of {@code SimpleIndexer}.
+ * <p>
+ * Every section is divided into fixed count of steps, and the secondary label of each step is
+ * resolved once when the table is built. So the touch within a cell is mapped to an exact adapter
+ * position and a secondary label in O(1).
+ */
+public class ScrubTable {
+
+    /**
+     * Provider of secondary label, for example, the first two characters of contact's name.
+     */
+    public interface LabelProvider {
+        /**
+         * @param position position of item.
+         * @return secondary label of item.
+         */
+        String getLabel(int position);
+    }
+
+    /**
+     * Default count of steps within a section.
+     */
+    public static final int DEFAULT_STEPS = 16;
+
+    private final SectionTable mSectionTable;
+    private final int mSteps;
+
+    /**
+     * Secondary labels, steps per section.
+     */
+    private final String[] mLabels;
+
+    /**
+     * Constructs the table, label provider is asked once per step of non-empty section.
+     *
+     * @param sectionTable section table of data set.
+     * @param steps        count of steps within a section.
+     * @param provider     provider of secondary label.
+     */
+    public ScrubTable(SectionTable sectionTable, int steps, LabelProvider provider) {
+        mSectionTable = sectionTable;
+        mSteps = Math.max(steps, 1);
+        mLabels = new String[sectionTable.getSectionCount() * mSteps];
+        for (int section = 0; section < sectionTable.getSectionCount(); section++) {
+            if (sectionTable.getSectionSize(section) == 0) {
+                continue;
+            }
+            String previous = null;
+            for (int step = 0; step < mSteps; step++) {
+                String label = provider.getLabel(getPosition(section, step / (float) mSteps));
+                // Share equal labels to keep the table small.
+                if (label != null && label.equals(previous)) {
+                    label = previous;
+                }
+                mLabels[section * mSteps + step] = label;
+                previous = label;
+            }
+        }
+    }
+
+    public SectionTable getSectionTable() {
+        return mSectionTable;
+    }
+
+    /**
+     * Map fraction within section to adapter position.
+     *
+     * @param section  index of section.
+     * @param fraction fraction within section, in [0, 1].
+     * @return adapter position.
+     */
+    public int getPosition(int section, float fraction) {
+        int start = mSectionTable.getPositionForSection(section);
+        int size = mSectionTable.getSectionSize(section);
+        if (size == 0) {
+            return start;
+        }
+        int offset = (int) (Math.max(Math.min(fraction, 1.f), 0.f) * size);
+        return start + Math.min(offset, size - 1);
+    }
+
+    /**
+     * Map fraction within section to secondary label.
+     *
+     * @param section  index of section.
+     * @param fraction fraction within section, in [0, 1].
+     * @return secondary label, or null if section is empty.
+     */
+    public String getLabel(int section, float fraction) {
+        if (section < 0 || section >= mSectionTable.getSectionCount()) {
+            return null;
+        }
+        int step = (int) (Math.max(Math.min(fraction, 1.f), 0.f) * mSteps);
+        return mLabels[section * mSteps + Math.min(step, mSteps - 1)];
+    }
+}
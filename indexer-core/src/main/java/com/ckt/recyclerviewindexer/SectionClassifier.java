@@ -0,0 +1,160 @@
+package com.ckt.recyclerviewindexer;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Classifier mapping sort keys to sections of an indexer string, for example,
+ * "%ABCDEFGHIJKLMNOPQRSTUVWXYZ#". Keys starting with a digit belong to the last section, keys
+ * starting with an ASCII letter belong to the section of the letter regardless of case, and the
+ * others belong to the first section.
+ * <p>
+ * Classification is a table lookup of the first character, and a table of a sorted data set is
+ * built in a single pass, or in parallel chunks for very large data sets.
+ */
+public class SectionClassifier {
+
+    private static final int LETTER_COUNT = 26;
+
+    /**
+     * Count of keys classified by a single fork/join task. Smaller chunks cost more to schedule
+     * than they save.
+     */
+    static final int PARALLEL_CHUNK_SIZE = 16 * 1024;
+
+    private final int mSectionCount;
+
+    /**
+     * Section of each letter from 'A' to 'Z', or 0 if letter is absent from indexer string.
+     */
+    private final int[] mLetterSections = new int[LETTER_COUNT];
+
+    /**
+     * Constructs the classifier.
+     *
+     * @param indexerString indexer string, the first character represents other characters and
+     *                      the last character represents digits.
+     */
+    public SectionClassifier(CharSequence indexerString) {
+        mSectionCount = indexerString.length();
+        for (int i = 1; i < mSectionCount - 1; i++) {
+            char letter = Character.toUpperCase(indexerString.charAt(i));
+            if (letter >= 'A' && letter <= 'Z' && mLetterSections[letter - 'A'] == 0) {
+                mLetterSections[letter - 'A'] = i;
+            }
+        }
+    }
+
+    public int getSectionCount() {
+        return mSectionCount;
+    }
+
+    /**
+     * Classify sort key.
+     *
+     * @param key sort key, for example, contact's name.
+     * @return index of section.
+     */
+    public int getSectionForKey(CharSequence key) {
+        if (key == null || key.length() == 0) {
+            return 0;
+        }
+        char firstChar = key.charAt(0);
+        if (firstChar >= '0' && firstChar <= '9') {
+            return mSectionCount - 1;
+        }
+        if (firstChar >= 'a' && firstChar <= 'z') {
+            return mLetterSections[firstChar - 'a'];
+        }
+        if (firstChar >= 'A' && firstChar <= 'Z') {
+            return mLetterSections[firstChar - 'A'];
+        }
+        return 0;
+    }
+
+    /**
+     * Build section table of keys in a single pass, keys must be sorted so that their sections
+     * are ascending.
+     *
+     * @param sortedKeys sorted keys.
+     * @return section table.
+     */
+    public SectionTable buildTable(CharSequence[] sortedKeys) {
+        int[] sectionStarts = new int[mSectionCount];
+        int section = 0;
+        for (int position = 0; position < sortedKeys.length; position++) {
+            int keySection = getSectionForKey(sortedKeys[position]);
+            // Sections between the previous one and this one are empty, they start here.
+            while (section <= keySection && section < mSectionCount) {
+                sectionStarts[section++] = position;
+            }
+        }
+        while (section < mSectionCount) {
+            sectionStarts[section++] = sortedKeys.length;
+        }
+        return new SectionTable(sectionStarts, sortedKeys.length);
+    }
+
+    /**
+     * Build section table of keys on a fork/join pool. Keys are split into chunks which are
+     * classified in parallel, each chunk finds the first position of every section within it,
+     * and then chunks are merged by taking the smallest first position of each section. The
+     * result is the same as {@link #buildTable(CharSequence[])}.
+     * <p>
+     * It blocks until the table is built, so it must be called off the main thread.
+     *
+     * @param sortedKeys sorted keys.
+     * @param pool       pool which classifies chunks.
+     * @return section table.
+     */
+    public SectionTable buildTable(CharSequence[] sortedKeys, ForkJoinPool pool) {
+        if (sortedKeys.length <= PARALLEL_CHUNK_SIZE) {
+            return buildTable(sortedKeys);
+        }
+        int[] sectionStarts = pool.invoke(new ClassifyTask(sortedKeys, 0, sortedKeys.length));
+        // Empty section starts where the next non-empty one starts.
+        for (int section = mSectionCount - 2; section >= 0; section--) {
+            sectionStarts[section] = Math.min(sectionStarts[section], sectionStarts[section + 1]);
+        }
+        return new SectionTable(sectionStarts, sortedKeys.length);
+    }
+
+    /**
+     * Task finding the first position of every section within a range of keys, or count of all
+     * keys if section is absent from range.
+     */
+    private class ClassifyTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence[] mKeys;
+        private final int mFrom, mTo;
+
+        ClassifyTask(CharSequence[] keys, int from, int to) {
+            mKeys = keys;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (mTo - mFrom <= PARALLEL_CHUNK_SIZE) {
+                int[] firstPositions = new int[mSectionCount];
+                Arrays.fill(firstPositions, mKeys.length);
+                for (int position = mTo - 1; position >= mFrom; position--) {
+                    firstPositions[getSectionForKey(mKeys[position])] = position;
+                }
+                return firstPositions;
+            }
+            int middle = (mFrom + mTo) >>> 1;
+            ClassifyTask left = new ClassifyTask(mKeys, mFrom, middle);
+            left.fork();
+            int[] firstPositions = new ClassifyTask(mKeys, middle, mTo).compute();
+            int[] leftFirstPositions = left.join();
+            for (int section = 0; section < mSectionCount; section++) {
+                firstPositions[section] = Math.min(firstPositions[section], leftFirstPositions[section]);
+            }
+            return firstPositions;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ckt.recyclerviewindexer;
+
+import java.util.Arrays;
+
+/**
+ * Immutable table of section start positions, which is precomputed once per data snapshot.
+ * <p>
+ * Section's start position is resolved in O(1), and position's section is resolved in O(log k)
+ * by binary search, k is count of sections. Both of them never touch the cursor.
+ * <p>
+ * It's plain Java, so it's shared by the indexer, the app and benchmarks.
+ */
+public class SectionTable {
+
+    /**
+     * Start position of each section, the last element is count of items.
+     */
+    private final int[] mSectionStarts;
+
+    /**
+     * Constructs the table.
+     *
+     * @param sectionStarts start position of each section, it must be ascending. Empty section
+     *                      has the same start position as the next section.
+     * @param itemCount     count of items.
+     */
+    public SectionTable(int[] sectionStarts, int itemCount) {
+        mSectionStarts = Arrays.copyOf(sectionStarts, sectionStarts.length + 1);
+        mSectionStarts[sectionStarts.length] = itemCount;
+        // Make sure start positions are ascending and inside [0, itemCount].
+        int previous = 0;
+        for (int i = 0; i < mSectionStarts.length; i++) {
+            mSectionStarts[i] = Math.min(Math.max(mSectionStarts[i], previous), itemCount);
+            previous = mSectionStarts[i];
+        }
+    }
+
+    /**
+     * Lookup of section's start position, for example, {@code SectionIndexer#getPositionForSection}.
+     */
+    public interface PositionLookup {
+        /**
+         * @param section index of section.
+         * @return start position of section.
+         */
+        int getPositionForSection(int section);
+    }
+
+    /**
+     * Build table from a lookup, for example, a section indexer of data set. It looks up every
+     * section once.
+     *
+     * @param lookup       lookup of section's start position.
+     * @param sectionCount count of sections.
+     * @param itemCount    count of items.
+     * @return section table.
+     */
+    public static SectionTable from(PositionLookup lookup, int sectionCount, int itemCount) {
+        int[] sectionStarts = new int[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            sectionStarts[i] = lookup.getPositionForSection(i);
+        }
+        return new SectionTable(sectionStarts, itemCount);
+    }
+
+    public int getSectionCount() {
+        return mSectionStarts.length - 1;
+    }
+
+    public int getItemCount() {
+        return mSectionStarts[mSectionStarts.length - 1];
+    }
+
+    /**
+     * Get start position of section.
+     *
+     * @param section index of section.
+     * @return start position, it's equal to start position of the next section if section is empty.
+     */
+    public int getPositionForSection(int section) {
+        section = Math.max(Math.min(section, getSectionCount() - 1), 0);
+        return mSectionStarts[section];
+    }
+
+    /**
+     * Get end position (exclusive) of section.
+     *
+     * @param section index of section.
+     * @return end position.
+     */
+    public int getSectionEnd(int section) {
+        section = Math.max(Math.min(section, getSectionCount() - 1), 0);
+        return mSectionStarts[section + 1];
+    }
+
+    /**
+     * Get count of items within section.
+     *
+     * @param section index of section.
+     * @return count of items.
+     */
+    public int getSectionSize(int section) {
+        return getSectionEnd(section) - getPositionForSection(section);
+    }
+
+    /**
+     * Get section of position by binary search.
+     *
+     * @param position position of item.
+     * @return index of section, the last non-empty section whose start is not after position.
+     */
+    public int getSectionForPosition(int position) {
+        int low = 0;
+        int high = getSectionCount() - 1;
+        int section = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mSectionStarts[mid] <= position) {
+                section = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // Skip empty sections which share start position with the found one.
+        while (section > 0 && mSectionStarts[section] == mSectionStarts[section + 1]) {
+            section--;
+        }
+        return section;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ckt.recyclerviewindexer;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test of {@link SectionClassifier}, a table built in parallel chunks is the same as the one
+ * built in a single pass, especially around chunk boundaries.
+ */
+public class SectionClassifierTest {
+    private static final String INDEXER_STRING = "%ABCDEFGHIJKLMNOPQRSTUVWXYZ#";
+    private static final int CHUNK = SectionClassifier.PARALLEL_CHUNK_SIZE;
+
+    private static final ForkJoinPool sPool = new ForkJoinPool(4);
+    private final SectionClassifier mClassifier = new SectionClassifier(INDEXER_STRING);
+
+    @AfterClass
+    public static void tearDownClass() {
+        sPool.shutdown();
+    }
+
+    @Test
+    public void sizesAroundChunkSize() {
+        for (int count : new int[]{0, 1, CHUNK - 1, CHUNK, CHUNK + 1, 2 * CHUNK - 1, 2 * CHUNK,
+                2 * CHUNK + 1, 4 * CHUNK + 3}) {
+            assertSameTable(evenKeys(count));
+        }
+    }
+
+    @Test
+    public void sectionStartsOnChunkBoundary() {
+        // "A" fills the first chunk exactly, "B" starts at the first key of the second chunk
+        assertSameTable(keys("A", CHUNK, "B", CHUNK + 1));
+        assertSameTable(keys("A", CHUNK - 1, "B", CHUNK + 2));
+        assertSameTable(keys("A", CHUNK + 1, "B", CHUNK));
+    }
+
+    @Test
+    public void emptySectionsSpanChunks() {
+        // sections B to Y are empty, and the chunks between the last "A" and the first "Z" hold
+        // other sections only
+        assertSameTable(keys("%", 10, "A", 2 * CHUNK + 1, "Z", CHUNK - 1, "1", 7));
+        // whole chunks of a single section, every other section is empty
+        assertSameTable(keys("M", 3 * CHUNK));
+        // leading and trailing sections are empty
+        assertSameTable(keys("C", CHUNK + 1, "X", CHUNK + 1));
+    }
+
+    private void assertSameTable(CharSequence[] keys) {
+        SectionTable expected = mClassifier.buildTable(keys);
+        SectionTable actual = mClassifier.buildTable(keys, sPool);
+        assertEquals(expected.getItemCount(), actual.getItemCount());
+        assertEquals(expected.getSectionCount(), actual.getSectionCount());
+        for (int section = 0; section < expected.getSectionCount(); section++) {
+            assertEquals("start of section " + section + " of " + keys.length + " keys",
+                    expected.getPositionForSection(section), actual.getPositionForSection(section));
+        }
+    }
+
+    /**
+     * sorted keys of every section, spread evenly
+     */
+    private static CharSequence[] evenKeys(int count) {
+        CharSequence[] keys = new CharSequence[count];
+        for (int i = 0; i < count; i++) {
+            int section = (int) ((long) i * INDEXER_STRING.length() / Math.max(count, 1));
+            keys[i] = section == INDEXER_STRING.length() - 1
+                    ? "0" + i : INDEXER_STRING.charAt(section) + "x" + i;
+        }
+        return keys;
+    }
+
+    /**
+     * sorted keys of runs, each run is a first character and count of keys starting with it
+     */
+    private static CharSequence[] keys(Object... runs) {
+        List<CharSequence> keys = new ArrayList<>();
+        for (int i = 0; i < runs.length; i += 2) {
+            String first = (String) runs[i];
+            int count = (Integer) runs[i + 1];
+            for (int j = 0; j < count; j++) {
+                keys.add(first + j);
+            }
+        }
+        return keys.toArray(new CharSequence[keys.size()]);
+    }
+}
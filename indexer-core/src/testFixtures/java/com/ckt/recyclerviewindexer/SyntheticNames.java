@@ -0,0 +1,71 @@
+package com.ckt.recyclerviewindexer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Synthetic data sets of contacts' names, sorted the way contacts provider sorts them: symbols
+ * first, then letters, then digits. It's shared by tests of the app and by benchmarks.
+ */
+public final class SyntheticNames {
+
+    /**
+     * Relative frequency of English names' initials, from 'A' to 'Z'.
+     */
+    private static final int[] INITIAL_WEIGHTS = {
+            60, 45, 50, 45, 35, 20, 25, 30, 5, 60, 30, 45, 70,
+            25, 10, 30, 2, 40, 70, 40, 3, 12, 15, 1, 6, 4
+    };
+
+    private SyntheticNames() {
+    }
+
+    /**
+     * Generate sorted names.
+     *
+     * @param count      count of names.
+     * @param seed       seed of random, the same seed generates the same names.
+     * @param classifier classifier which names are sorted by.
+     * @return sorted names.
+     */
+    public static String[] generate(int count, long seed, final SectionClassifier classifier) {
+        Random random = new Random(seed);
+        int totalWeight = 0;
+        for (int weight : INITIAL_WEIGHTS) {
+            totalWeight += weight;
+        }
+        String[] names = new String[count];
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            name.setLength(0);
+            int kind = random.nextInt(100);
+            if (kind == 0) {
+                name.append('+');
+            } else if (kind == 1) {
+                name.append((char) ('0' + random.nextInt(10)));
+            } else {
+                int pick = random.nextInt(totalWeight);
+                int letter = 0;
+                while (pick >= INITIAL_WEIGHTS[letter]) {
+                    pick -= INITIAL_WEIGHTS[letter++];
+                }
+                name.append((char) ('A' + letter));
+            }
+            int length = 3 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                name.append((char) ('a' + random.nextInt(26)));
+            }
+            name.append(' ').append((char) ('A' + random.nextInt(26)));
+            names[i] = name.toString();
+        }
+        Arrays.sort(names, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                int section = classifier.getSectionForKey(a) - classifier.getSectionForKey(b);
+                return section != 0 ? section : a.compareToIgnoreCase(b);
+            }
+        });
+        return names;
+    }
+}
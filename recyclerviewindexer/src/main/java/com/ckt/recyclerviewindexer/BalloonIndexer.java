@@ -13,9 +13,11 @@ import android.text.TextPaint;
 
 public class BalloonIndexer extends SimpleIndexer {
 
-    private TextPaint mBalloonTextPaint;
-    private RectF mBalloonIndicatorRect;
-    private Path mBalloonPath;
+    private final TextPaint mBalloonTextPaint = new TextPaint();
+    private final RectF mBalloonIndicatorRect = new RectF();
+    private final Path mBalloonPath = new Path();
+    // shared resources last copied into text paint, rect and path
+    private BalloonResources mAppliedResources;
     private float mOutlineMinMarginTop;
     private Paint mBalloonPaint;
 
@@ -23,27 +25,61 @@ public class BalloonIndexer extends SimpleIndexer {
         super(builder);
         mBalloonPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mBalloonPaint.setStyle(Paint.Style.FILL);
-        mBalloonPaint.setColor(mIndicatorBgColor);
-
-        mBalloonTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
-        mBalloonTextPaint.setColor(Color.WHITE);
-        mBalloonTextPaint.setTextSize(mIndexerTextSize * 2);
-
-        Paint.FontMetrics fontMetrics = mBalloonTextPaint.getFontMetrics();
-        float balloonBoundSize = fontMetrics.bottom - fontMetrics.top;
-        float diameter = (float) Math.hypot(balloonBoundSize, balloonBoundSize);
+        onIndicatorConfigChanged();
+    }
 
-        mBalloonIndicatorRect = new RectF(0, 0, diameter, diameter);
+    @Override
+    protected void onIndicatorConfigChanged() {
+        mBalloonPaint.setColor(mIndicatorBgColor);
 
-        mBalloonPath = new Path();
-        mBalloonPath.addArc(mBalloonIndicatorRect, 90, 270);
-        mBalloonPath.rLineTo(0, mBalloonIndicatorRect.height() / 2);
-        mBalloonPath.rLineTo(-mBalloonIndicatorRect.width() / 2, 0);
+        // Balloon's text paint and path are measured once for identical indexers, each of them
+        // draws with its own copies, which are updated in place only when the shared ones change.
+        BalloonResources resources = (BalloonResources) getSharedStyleResources();
+        if (resources == null) {
+            resources = new BalloonResources(mIndexerTextSize);
+            setSharedStyleResources(resources);
+        }
+        if (resources != mAppliedResources) {
+            mBalloonTextPaint.set(resources.mTextPaint);
+            mBalloonIndicatorRect.set(resources.mIndicatorRect);
+            mBalloonPath.set(resources.mPath);
+            mAppliedResources = resources;
+        }
+        float diameter = mBalloonIndicatorRect.width();
 
         mOutlineMinMarginTop = diameter - mCellHeight * 3.f / 2 - mPadding;
         if (mOutlineMinMarginTop < 0) {
             mOutlineMinMarginTop = 0;
         }
+
+        setIndicatorCacheSize((int) Math.ceil(diameter), (int) Math.ceil(diameter));
+    }
+
+    /**
+     * Immutable resources shared by identical balloon indexers, they are templates which are
+     * copied and never drawn with.
+     */
+    private static class BalloonResources {
+        final TextPaint mTextPaint;
+        final RectF mIndicatorRect;
+        final Path mPath;
+
+        BalloonResources(int indexerTextSize) {
+            mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+            mTextPaint.setColor(Color.WHITE);
+            mTextPaint.setTextSize(indexerTextSize * 2);
+
+            Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+            float balloonBoundSize = fontMetrics.bottom - fontMetrics.top;
+            float diameter = (float) Math.hypot(balloonBoundSize, balloonBoundSize);
+
+            mIndicatorRect = new RectF(0, 0, diameter, diameter);
+
+            mPath = new Path();
+            mPath.addArc(mIndicatorRect, 90, 270);
+            mPath.rLineTo(0, mIndicatorRect.height() / 2);
+            mPath.rLineTo(-mIndicatorRect.width() / 2, 0);
+        }
     }
 
     @Override
@@ -52,16 +88,15 @@ public class BalloonIndexer extends SimpleIndexer {
             return;
         }
 
-        c.save();
-
         float dy = indicatorBaseY - mBalloonIndicatorRect.height();
-        c.translate(outer.left - mBalloonIndicatorRect.width(),
-                dy);
+        drawCachedIndicator(c, outer.left - mBalloonIndicatorRect.width(), dy, indicatorChar);
+    }
+
+    @Override
+    protected void renderIndicator(Canvas c, String indicatorChar) {
         c.drawPath(mBalloonPath, mBalloonPaint);
         mBalloonTextPaint.getTextBounds(indicatorChar, 0, indicatorChar.length(), mTmpTextBound);
         c.drawText(indicatorChar, mBalloonIndicatorRect.width() / 2.f - mTmpTextBound.width() / 2.f,
                 mBalloonIndicatorRect.width() / 2.f + mTmpTextBound.height() / 2.f, mBalloonTextPaint);
-
-        c.restore();
     }
 }
@@ -0,0 +1,140 @@
+package com.ckt.recyclerviewindexer;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registry of caches of a screen, which trims them in tiers as memory gets short. Register it by
+ * {@link android.content.Context#registerComponentCallbacks(android.content.ComponentCallbacks)}.
+ * <p>
+ * Tiers are cumulative: offscreen bitmaps are dropped first, then every rendered bitmap, and
+ * finally text indexes. Caches rebuild lazily when they are used again, so trimming never blocks
+ * the UI. Bytes freed at each tier are reported by {@link #dump(PrintWriter, String)}.
+ */
+public class CacheRegistry implements ComponentCallbacks2 {
+    private static final String TAG = CacheRegistry.class.getSimpleName();
+
+    /**
+     * Drop bitmaps which are not on screen, while UI is still visible.
+     */
+    public static final int TIER_OFFSCREEN = 1;
+
+    /**
+     * Drop every rendered bitmap, after UI is hidden or memory is critical.
+     */
+    public static final int TIER_RENDERED = 2;
+
+    /**
+     * Drop text indexes and layouts too, when process is likely to be killed.
+     */
+    public static final int TIER_ALL = 3;
+
+    private static final String[] TIER_NAMES = {"none", "offscreen", "rendered", "all"};
+
+    /**
+     * Cache which can be trimmed.
+     */
+    public interface TrimmableCache {
+        /**
+         * Trim cache, it must be rebuilt lazily when used again.
+         *
+         * @param tier one of {@link #TIER_OFFSCREEN}, {@link #TIER_RENDERED} and {@link #TIER_ALL},
+         *             a tier includes the lower ones.
+         * @return bytes freed, estimated.
+         */
+        long trim(int tier);
+    }
+
+    private final CopyOnWriteArrayList<TrimmableCache> mCaches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Count of trims and bytes freed at each tier.
+     */
+    private final AtomicLongArray mTrimCounts = new AtomicLongArray(TIER_NAMES.length);
+    private final AtomicLongArray mFreedBytes = new AtomicLongArray(TIER_NAMES.length);
+
+    public void register(TrimmableCache cache) {
+        mCaches.addIfAbsent(cache);
+    }
+
+    public void unregister(TrimmableCache cache) {
+        mCaches.remove(cache);
+    }
+
+    /**
+     * Map trim level to tier.
+     *
+     * @param level trim level of {@link ComponentCallbacks2}.
+     * @return tier, or 0 if nothing should be trimmed.
+     */
+    static int toTier(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            return TIER_ALL;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            // It includes TRIM_MEMORY_UI_HIDDEN and TRIM_MEMORY_BACKGROUND.
+            return TIER_RENDERED;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return TIER_OFFSCREEN;
+        }
+        return 0;
+    }
+
+    /**
+     * Trim every registered cache.
+     *
+     * @param tier tier to trim.
+     * @return bytes freed.
+     */
+    public long trim(int tier) {
+        if (tier <= 0) {
+            return 0;
+        }
+        tier = Math.min(tier, TIER_ALL);
+        long freed = 0;
+        for (TrimmableCache cache : mCaches) {
+            freed += cache.trim(tier);
+        }
+        mTrimCounts.incrementAndGet(tier);
+        mFreedBytes.addAndGet(tier, freed);
+        Log.i(TAG, "Trimmed " + TIER_NAMES[tier] + " caches, " + freed / 1024 + " KB freed.");
+        return freed;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        trim(toTier(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        trim(TIER_ALL);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * Print count of trims and bytes freed at each tier.
+     *
+     * @param writer writer to print to.
+     * @param prefix prefix of every line.
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println("CacheRegistry: " + mCaches.size() + " caches");
+        for (int tier = TIER_OFFSCREEN; tier <= TIER_ALL; tier++) {
+            writer.print(prefix);
+            writer.println(String.format(Locale.US, "  %s: trims=%d freed=%d KB",
+                    TIER_NAMES[tier], mTrimCounts.get(tier), mFreedBytes.get(tier) / 1024));
+        }
+    }
+}
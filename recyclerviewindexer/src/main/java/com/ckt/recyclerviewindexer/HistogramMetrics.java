@@ -0,0 +1,80 @@
+package com.ckt.recyclerviewindexer;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics which record every metric into its own {@link LatencyHistogram}. Histogram is created
+ * the first time a metric is recorded, after that recording is lock-free and allocation-free.
+ */
+public class HistogramMetrics implements IndexerMetrics {
+
+    private final ConcurrentHashMap<String, LatencyHistogram> mHistograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(String metric, long durationNanos) {
+        getHistogram(metric).record(durationNanos);
+    }
+
+    /**
+     * Get histogram of metric, it's created if absent.
+     *
+     * @param metric name of metric.
+     * @return histogram.
+     */
+    public LatencyHistogram getHistogram(String metric) {
+        LatencyHistogram histogram = mHistograms.get(metric);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = mHistograms.putIfAbsent(metric, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Take snapshots of all metrics, for example, to export percentiles to telemetry.
+     *
+     * @return snapshots by name of metric.
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshot() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new HashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : mHistograms.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Drop all recorded durations.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : mHistograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Print count and percentiles of every metric in microseconds, sorted by name of metric.
+     *
+     * @param writer writer to print to.
+     * @param prefix prefix of every line.
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : new TreeMap<>(snapshot()).entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue();
+            writer.print(prefix);
+            writer.println(String.format(Locale.US,
+                    "%s: count=%d mean=%dus p50=%dus p90=%dus p99=%dus max=%dus",
+                    entry.getKey(), snapshot.getCount(), snapshot.getMeanNanos() / 1000,
+                    snapshot.getPercentileNanos(50) / 1000, snapshot.getPercentileNanos(90) / 1000,
+                    snapshot.getPercentileNanos(99) / 1000, snapshot.getMaxNanos() / 1000));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ckt.recyclerviewindexer;
+
+/**
+ * Pluggable metrics surface of indexer and decorations. Durations of per-frame calls and
+ * drag-to-content latency are reported to it, implementation must be lock-free and must not
+ * allocate while recording, for example, {@link HistogramMetrics}.
+ */
+public interface IndexerMetrics {
+
+    /**
+     * Duration of {@link SimpleIndexer#onDrawOver}.
+     */
+    String INDEXER_DRAW = "indexer.draw";
+
+    /**
+     * Time from the move on indexer which selects a section to the frame where the section is on
+     * screen.
+     */
+    String DRAG_TO_CONTENT = "indexer.dragToContent";
+
+    /**
+     * Record a duration.
+     *
+     * @param metric        name of metric, which should be a constant.
+     * @param durationNanos duration in nanoseconds.
+     */
+    void record(String metric, long durationNanos);
+}
@@ -0,0 +1,248 @@
+package com.ckt.recyclerviewindexer;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.text.TextPaint;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Paints and glyph geometry shared by indexers with the same indexer string, text size, density
+ * and style. Resources are reference counted within a pool, so indexers alive on several lists
+ * measure glyphs only once.
+ * <p>
+ * Shared state is immutable: geometry is never written after it's measured, and paints are kept
+ * as templates which are never handed out, every indexer gets its own copies instead. So an
+ * indexer changing its paints never affects the others.
+ * <p>
+ * Resources no indexer refers to are kept for a while, up to {@link #MAX_UNUSED}, so that an
+ * indexer recreated right after the old one is released, for example, by a configuration change
+ * which destroys the old activity before the new one is created, reuses them.
+ */
+class IndexerResources {
+
+    /**
+     * Count of unused resources kept in pool.
+     */
+    static final int MAX_UNUSED = 4;
+
+    /**
+     * Pool of shared resources, used or not.
+     */
+    private static final Map<Key, IndexerResources> sPool = new HashMap<>();
+
+    /**
+     * Resources no indexer refers to, the least recently released first.
+     */
+    private static final LinkedHashMap<Key, IndexerResources> sUnused =
+            new LinkedHashMap<Key, IndexerResources>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, IndexerResources> eldest) {
+                    if (size() > MAX_UNUSED) {
+                        sPool.remove(eldest.getKey());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    private final Key mKey;
+    private int mRefCount;
+
+    /**
+     * Template of paint used to draw indexer character, and of paint used to draw prefixes.
+     */
+    private final TextPaint mIndexerTextPaint, mPrefixTextPaint;
+
+    /**
+     * Template of paint used to draw outline.
+     */
+    private final Paint mOutlinePaint;
+
+    /**
+     * Size of a cell of indexer.
+     */
+    final int mCellSize;
+
+    /**
+     * Label of each section, and its left and baseline offset within cell. They are never written
+     * after they are measured.
+     */
+    final String[] mSectionLabels;
+    final float[] mLabelLeft, mLabelBaselineOffset;
+
+    /**
+     * Width of prefix strip.
+     */
+    final float mPrefixStripWidth;
+
+    /**
+     * Resources of style, created by indexer subclass.
+     */
+    private Object mStyleResources;
+
+    private IndexerResources(Key key, DisplayMetrics displayMetrics) {
+        mKey = key;
+
+        mIndexerTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        mIndexerTextPaint.setTextSize(key.mTextSize);
+
+        Paint.FontMetrics fontMetrics = mIndexerTextPaint.getFontMetrics();
+        float fontMetricsHeight = fontMetrics.bottom - fontMetrics.top;
+        mCellSize = (int) Math.ceil(fontMetricsHeight);
+
+        int sectionCount = key.mIndexerString.length();
+        mSectionLabels = new String[sectionCount];
+        mLabelLeft = new float[sectionCount];
+        mLabelBaselineOffset = new float[sectionCount];
+        Rect textBound = new Rect();
+        for (int i = 0; i < sectionCount; i++) {
+            mSectionLabels[i] = String.valueOf(key.mIndexerString.charAt(i));
+            mIndexerTextPaint.getTextBounds(mSectionLabels[i], 0, mSectionLabels[i].length(), textBound);
+            mLabelLeft[i] = mCellSize / 2.f - textBound.width() / 2.f;
+            mLabelBaselineOffset[i] = textBound.height() / 2.f;
+        }
+
+        mPrefixTextPaint = new TextPaint(mIndexerTextPaint);
+        mPrefixTextPaint.setTextAlign(Paint.Align.RIGHT);
+
+        // Prefix strip is wide enough for two wide characters, for example, "Mw".
+        mPrefixStripWidth = mIndexerTextPaint.measureText("MW") + key.mPadding * 2;
+
+        mOutlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mOutlinePaint.setStyle(Paint.Style.STROKE);
+        mOutlinePaint.setColor(Color.BLACK);
+        mOutlinePaint.setStrokeWidth((int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+                SimpleIndexer.DEFAULT_OUTLINE_STROKE_WIDTH_DP, displayMetrics));
+    }
+
+    /**
+     * Acquire shared resources, they are created if absent. Every acquire must be paired with
+     * {@link #release()}.
+     *
+     * @param indexerString  indexer string.
+     * @param textSize       text size of indexer character in pixels.
+     * @param padding        padding of indexer in pixels.
+     * @param displayMetrics display metrics.
+     * @param style          style of indexer, for example, class name of indexer.
+     * @return shared resources.
+     */
+    static IndexerResources acquire(String indexerString, int textSize, int padding,
+                                    DisplayMetrics displayMetrics, String style) {
+        Key key = new Key(indexerString, textSize, padding, displayMetrics.density, style);
+        synchronized (sPool) {
+            IndexerResources resources = sPool.get(key);
+            if (resources == null) {
+                resources = new IndexerResources(key, displayMetrics);
+                sPool.put(key, resources);
+            } else if (resources.mRefCount == 0) {
+                sUnused.remove(key);
+            }
+            resources.mRefCount++;
+            return resources;
+        }
+    }
+
+    /**
+     * Release shared resources. Once no indexer refers to them they are kept as unused, and
+     * dropped from pool when more than {@link #MAX_UNUSED} are unused, or when unused ones are
+     * trimmed.
+     */
+    void release() {
+        synchronized (sPool) {
+            if (mRefCount > 0 && --mRefCount == 0) {
+                sUnused.put(mKey, this);
+            }
+        }
+    }
+
+    /**
+     * Drop all resources no indexer refers to.
+     *
+     * @return count of dropped resources.
+     */
+    static int trimUnused() {
+        synchronized (sPool) {
+            int count = sUnused.size();
+            sPool.keySet().removeAll(sUnused.keySet());
+            sUnused.clear();
+            return count;
+        }
+    }
+
+    /**
+     * Copy templates into paints owned by an indexer, the paints are updated in place.
+     *
+     * @param indexerTextPaint paint used to draw indexer character.
+     * @param prefixTextPaint  paint used to draw prefixes.
+     * @param outlinePaint     paint used to draw outline.
+     */
+    void copyPaintsTo(TextPaint indexerTextPaint, TextPaint prefixTextPaint, Paint outlinePaint) {
+        indexerTextPaint.set(mIndexerTextPaint);
+        prefixTextPaint.set(mPrefixTextPaint);
+        outlinePaint.set(mOutlinePaint);
+    }
+
+    /**
+     * Get resources of style, which are shared by indexers of the same key.
+     *
+     * @return resources of style, or null if they have not been created.
+     */
+    Object getStyleResources() {
+        return mStyleResources;
+    }
+
+    void setStyleResources(Object styleResources) {
+        mStyleResources = styleResources;
+    }
+
+    /**
+     * Key of shared resources.
+     */
+    private static final class Key {
+        private final String mIndexerString;
+        private final int mTextSize;
+        private final int mPadding;
+        private final float mDensity;
+        private final String mStyle;
+
+        Key(String indexerString, int textSize, int padding, float density, String style) {
+            mIndexerString = indexerString;
+            mTextSize = textSize;
+            mPadding = padding;
+            mDensity = density;
+            mStyle = style;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mTextSize == key.mTextSize
+                    && mPadding == key.mPadding
+                    && Float.compare(mDensity, key.mDensity) == 0
+                    && mIndexerString.equals(key.mIndexerString)
+                    && mStyle.equals(key.mStyle);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mIndexerString.hashCode();
+            result = 31 * result + mTextSize;
+            result = 31 * result + mPadding;
+            result = 31 * result + Float.floatToIntBits(mDensity);
+            result = 31 * result + mStyle.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ckt.recyclerviewindexer;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of rendered indicators. Each section of indexer string owns at most one bitmap, which is
+ * rendered the first time the section is shown and then only blitted while dragging.
+ */
+public class IndicatorCache {
+
+    /**
+     * Renderer used to draw indicator into cache bitmap.
+     */
+    public interface Renderer {
+        /**
+         * Render indicator of section, the origin of canvas is the top left of bitmap.
+         *
+         * @param c             canvas backed by cache bitmap.
+         * @param indicatorChar section string to be rendered.
+         */
+        void renderIndicator(Canvas c, String indicatorChar);
+    }
+
+    /**
+     * Cached bitmaps indexed by section index.
+     */
+    private Bitmap[] mBitmaps;
+
+    /**
+     * Whether cached bitmap is up to date. Stale bitmaps are reused to render again.
+     */
+    private boolean[] mValid;
+
+    /**
+     * Canvas reused to render every bitmap.
+     */
+    private final Canvas mCanvas = new Canvas();
+
+    /**
+     * Size of cached bitmap.
+     */
+    private int mWidth, mHeight;
+
+    /**
+     * Count of lookups served from cache, and count of lookups which rendered indicator.
+     */
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+
+    public IndicatorCache(int sectionCount) {
+        mBitmaps = new Bitmap[Math.max(sectionCount, 0)];
+        mValid = new boolean[mBitmaps.length];
+    }
+
+    /**
+     * Set size of cached bitmap. Cached bitmaps are dropped if size changed.
+     *
+     * @param width  width of indicator.
+     * @param height height of indicator.
+     */
+    public void setSize(int width, int height) {
+        if (mWidth == width && mHeight == height) {
+            return;
+        }
+        mWidth = width;
+        mHeight = height;
+        clear();
+    }
+
+    /**
+     * Set count of sections. Cached bitmaps are dropped if count changed.
+     *
+     * @param sectionCount count of sections within indexer string.
+     */
+    public void setSectionCount(int sectionCount) {
+        if (mBitmaps.length == sectionCount) {
+            return;
+        }
+        clear();
+        mBitmaps = new Bitmap[Math.max(sectionCount, 0)];
+        mValid = new boolean[mBitmaps.length];
+    }
+
+    /**
+     * Get cached bitmap of section, render it if absent.
+     *
+     * @param sectionIndex  index of section within indexer string.
+     * @param indicatorChar section string.
+     * @param renderer      renderer used to draw indicator if it has not been cached.
+     * @return cached bitmap, or null if section index or size is invalid.
+     */
+    public Bitmap get(int sectionIndex, String indicatorChar, Renderer renderer) {
+        if (sectionIndex < 0 || sectionIndex >= mBitmaps.length || mWidth <= 0 || mHeight <= 0) {
+            return null;
+        }
+        Bitmap bitmap = mBitmaps[sectionIndex];
+        if (bitmap == null || !mValid[sectionIndex]) {
+            mMissCount.incrementAndGet();
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
+                mBitmaps[sectionIndex] = bitmap;
+            }
+            mCanvas.setBitmap(bitmap);
+            mCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            renderer.renderIndicator(mCanvas, indicatorChar);
+            mCanvas.setBitmap(null);
+            mValid[sectionIndex] = true;
+        } else {
+            mHitCount.incrementAndGet();
+        }
+        return bitmap;
+    }
+
+    /**
+     * Mark all cached bitmaps stale, for example, after color changed. They are rendered again
+     * into the same bitmaps when needed.
+     */
+    public void invalidate() {
+        for (int i = 0; i < mValid.length; i++) {
+            mValid[i] = false;
+        }
+    }
+
+    /**
+     * Drop cached bitmaps except the one of a section, for example, the one shown while dragging.
+     * They will be rendered again when needed.
+     *
+     * @param keepSection index of section whose bitmap is kept, or -1 to drop all.
+     * @return bytes freed.
+     */
+    public long clearExcept(int keepSection) {
+        long freed = 0;
+        for (int i = 0; i < mBitmaps.length; i++) {
+            if (i == keepSection) {
+                continue;
+            }
+            if (mBitmaps[i] != null) {
+                freed += mBitmaps[i].getByteCount();
+                mBitmaps[i].recycle();
+                mBitmaps[i] = null;
+            }
+            mValid[i] = false;
+        }
+        return freed;
+    }
+
+    /**
+     * Drop all cached bitmaps, they will be rendered again when needed.
+     */
+    public void clear() {
+        for (int i = 0; i < mBitmaps.length; i++) {
+            if (mBitmaps[i] != null) {
+                mBitmaps[i].recycle();
+                mBitmaps[i] = null;
+            }
+            mValid[i] = false;
+        }
+    }
+
+    /**
+     * Print size and hit rate of cache.
+     *
+     * @param writer writer to print to.
+     * @param prefix prefix of every line.
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        int bitmapCount = 0;
+        long byteCount = 0;
+        for (Bitmap bitmap : mBitmaps) {
+            if (bitmap != null) {
+                bitmapCount++;
+                byteCount += bitmap.getByteCount();
+            }
+        }
+        long hits = mHitCount.get();
+        long misses = mMissCount.get();
+        writer.print(prefix);
+        writer.println(String.format(Locale.US,
+                "indicator cache: %d/%d bitmaps, %d KB, hits=%d misses=%d hitRate=%.1f%%",
+                bitmapCount, mBitmaps.length, byteCount / 1024, hits, misses,
+                hits + misses == 0 ? 0.f : hits * 100.f / (hits + misses)));
+    }
+}
@@ -0,0 +1,161 @@
+package com.ckt.recyclerviewindexer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations with a fixed set of buckets, which is safe to record into from
+ * any thread and never allocates while recording.
+ * <p>
+ * Durations are bucketed in microseconds, each power of two is split into four buckets, so a
+ * percentile is reported within 25% of the recorded duration.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Count of sub buckets of a power of two, as a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Count of buckets, the last bucket holds durations longer than about two hours.
+     */
+    static final int BUCKET_COUNT = 128;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mTotalNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    /**
+     * Record a duration.
+     *
+     * @param durationNanos duration in nanoseconds.
+     */
+    public void record(long durationNanos) {
+        if (durationNanos < 0) {
+            return;
+        }
+        mCounts.incrementAndGet(getBucket(durationNanos / 1000));
+        mTotalNanos.addAndGet(durationNanos);
+        long max;
+        while (durationNanos > (max = mMaxNanos.get())) {
+            if (mMaxNanos.compareAndSet(max, durationNanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Take a snapshot of recorded durations, recording may go on concurrently.
+     *
+     * @return snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, mTotalNanos.get(), mMaxNanos.get());
+    }
+
+    /**
+     * Drop all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalNanos.set(0);
+        mMaxNanos.set(0);
+    }
+
+    /**
+     * Map duration to bucket, durations shorter than four microseconds own a bucket each.
+     */
+    static int getBucket(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        int bucket = SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Map bucket to the longest duration it holds.
+     */
+    static long getBucketUpperBoundMicros(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+        int subBucket = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Immutable snapshot of a histogram, which is exported to telemetry.
+     */
+    public static class Snapshot {
+        private final long[] mCounts;
+        private final long mCount;
+        private final long mTotalNanos;
+        private final long mMaxNanos;
+
+        Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            mCounts = counts;
+            mCount = count;
+            mTotalNanos = totalNanos;
+            mMaxNanos = maxNanos;
+        }
+
+        /**
+         * @return count of recorded durations.
+         */
+        public long getCount() {
+            return mCount;
+        }
+
+        /**
+         * @return mean of recorded durations in nanoseconds, or 0 if nothing is recorded.
+         */
+        public long getMeanNanos() {
+            return mCount == 0 ? 0 : mTotalNanos / mCount;
+        }
+
+        /**
+         * @return the longest recorded duration in nanoseconds.
+         */
+        public long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        /**
+         * Get percentile of recorded durations, for example, 50, 90 or 99.
+         *
+         * @param percentile percentile in [0, 100].
+         * @return upper bound of the bucket holding percentile in nanoseconds, or 0 if nothing is
+         * recorded.
+         */
+        public long getPercentileNanos(double percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(Math.max(Math.min(percentile, 100), 0) / 100 * mCount);
+            rank = Math.max(rank, 1);
+            long seen = 0;
+            for (int i = 0; i < mCounts.length; i++) {
+                seen += mCounts[i];
+                if (seen >= rank) {
+                    return Math.min(getBucketUpperBoundMicros(i) * 1000 + 999, mMaxNanos);
+                }
+            }
+            return mMaxNanos;
+        }
+    }
+}
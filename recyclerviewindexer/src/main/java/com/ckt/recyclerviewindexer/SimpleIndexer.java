@@ -4,27 +4,38 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.support.annotation.IntDef;
 import android.support.v4.view.animation.FastOutLinearInInterpolator;
 import android.support.v4.view.animation.LinearOutSlowInInterpolator;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.text.TextPaint;
 import android.text.TextUtils;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.ViewConfiguration;
 import android.view.animation.Interpolator;
+import android.widget.SectionIndexer;
 
+import java.io.PrintWriter;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
 /**
@@ -32,8 +43,22 @@ import java.lang.annotation.RetentionPolicy;
  *
  * @author wei.zhou
  */
-public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
+public abstract class SimpleIndexer extends RecyclerView.ItemDecoration implements CacheRegistry.TrimmableCache {
     private static final String TAG = SimpleIndexer.class.getSimpleName();
+
+    /**
+     * Names of trace sections, they are constants so that tracing never builds strings.
+     */
+    private static final String TRACE_DRAW_STRIP = "SimpleIndexer#drawStrip";
+    private static final String TRACE_DRAW_PREFIX_STRIP = "SimpleIndexer#drawPrefixStrip";
+    private static final String TRACE_DRAW_INDICATOR = "SimpleIndexer#drawIndicator";
+    private static final String TRACE_TOUCH = "SimpleIndexer#touch";
+    private static final String TRACE_SECTION_LOOKUP = "SimpleIndexer#sectionLookup";
+
+    /**
+     * Whether to emit trace sections, which are shown by systrace and Perfetto.
+     */
+    private final boolean mTracing;
     private int mScaledTouchSlop;
 
     private RecyclerView mRecyclerView;
@@ -50,20 +75,56 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
     public static final int DEFAULT_INDEXER_TEXT_SIZE_SP = 14;
 
     /**
-     * Paint used to draw indexer character.
+     * Paints and glyph geometry shared with identical indexers.
+     */
+    private IndexerResources mResources;
+
+    /**
+     * Paint used to draw indexer character, it's owned by this indexer and updated in place.
      */
-    private TextPaint mIndexerTextPaint;
+    private final TextPaint mIndexerTextPaint = new TextPaint();
 
     /**
      * Height and width of character in indexer string.
      */
     protected int mCellHeight, mCellWidth;
 
+    /**
+     * Label of each section within indexer string, created once to avoid allocation while drawing.
+     */
+    private String[] mSectionLabels;
+
+    /**
+     * Left and baseline offset of each section's label within its cell, measured once.
+     */
+    private float[] mLabelLeft, mLabelBaselineOffset;
+
+    /**
+     * Section table driving visible sections, or null if all sections are shown.
+     */
+    private SectionTable mSectionTable;
+
+    /**
+     * Display metrics used to convert sizes.
+     */
+    private DisplayMetrics mDisplayMetrics;
+
+    /**
+     * Index of sections shown in indexer. All sections are shown unless a section table is set,
+     * in which case empty sections are hidden.
+     */
+    private int[] mVisibleSections;
+
+    /**
+     * Count of sections shown in indexer.
+     */
+    private int mVisibleCount;
+
 
     /**
      * Paint used to draw outline.
      */
-    private Paint mOutlinePaint;
+    private final Paint mOutlinePaint = new Paint();
     /**
      * Outline's rect.
      */
@@ -76,7 +137,7 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
     /**
      * Outline's default stroke width.
      */
-    private static final int DEFAULT_OUTLINE_STROKE_WIDTH_DP = 1;
+    static final int DEFAULT_OUTLINE_STROKE_WIDTH_DP = 1;
 
     /**
      * Outline's default horizontal padding.
@@ -110,11 +171,191 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
      */
     private String mSection;
 
+    /**
+     * Index of the section within indexer string.
+     */
+    private int mSectionIndex;
+
+    /**
+     * Cache of rendered indicator, one bitmap per section at most.
+     */
+    private IndicatorCache mIndicatorCache;
+
+    /**
+     * Renderer used by indicator cache, it delegates to {@link #renderIndicator(Canvas, String)}.
+     */
+    private IndicatorCache.Renderer mIndicatorRenderer = new IndicatorCache.Renderer() {
+        @Override
+        public void renderIndicator(Canvas c, String indicatorChar) {
+            SimpleIndexer.this.renderIndicator(c, indicatorChar);
+        }
+    };
+
     /**
      * Scroll listener.
      */
     private onScrollListener mListener;
 
+    /**
+     * Hover listener.
+     */
+    private onSectionHoverListener mHoverListener;
+
+    /**
+     * Index of the section hovered by pointer, or -1 if pointer is up.
+     */
+    private int mHoveredSection = -1;
+
+    /**
+     * Section whose jump is committed on a later frame, or -1 if no jump is pending. And exact
+     * position of the jump in scrub mode, or {@link RecyclerView#NO_POSITION} otherwise.
+     */
+    private int mPendingJumpSection = -1;
+    private int mPendingScrubPosition = RecyclerView.NO_POSITION;
+
+    /**
+     * Whether main thread has been idle since the pending jump was posted, and whether the jump
+     * has been put off to the next frame already.
+     */
+    private boolean mIdleSinceJumpPosted, mJumpDeferred;
+
+    /**
+     * Idle handler used to tell whether idle time has passed before the jump is committed.
+     */
+    private MessageQueue.IdleHandler mJumpIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mIdleSinceJumpPosted = true;
+            return false;
+        }
+    };
+
+    /**
+     * Callback used to commit the pending jump. The jump is committed only after main thread has
+     * been idle once, so the hover listener gets idle time to warm the target section first.
+     * Moves are batched and dispatched within a frame, and a callback posted from there runs in
+     * the same frame, so such a jump is put off to the next frame once.
+     */
+    private Choreographer.FrameCallback mJumpCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mIdleSinceJumpPosted && !mJumpDeferred) {
+                mJumpDeferred = true;
+                Choreographer.getInstance().postFrameCallback(this);
+                return;
+            }
+            int section = mPendingJumpSection;
+            int position = mPendingScrubPosition;
+            cancelPendingJump();
+            if (section < 0 || mRecyclerView == null) {
+                return;
+            }
+            if (position != RecyclerView.NO_POSITION) {
+                if (mScrubListener != null) {
+                    mScrubListener.onScrubbed(mRecyclerView, section, position);
+                }
+            } else if (mListener != null) {
+                mListener.onScrolled(mRecyclerView, section);
+            }
+        }
+    };
+
+    /**
+     * Table used by scrub mode, scrub mode is disabled if it's null.
+     */
+    private ScrubTable mScrubTable;
+
+    /**
+     * Scrub listener.
+     */
+    private onScrubListener mScrubListener;
+
+    /**
+     * Index used by hierarchical mode, hierarchical mode is disabled if it's null.
+     */
+    private PrefixIndex mPrefixIndex;
+
+    /**
+     * Prefix listener.
+     */
+    private onPrefixListener mPrefixListener;
+
+    /**
+     * Section whose prefix strip is expanded by long press, or -1 if collapsed.
+     */
+    private int mExpandedSection = -1;
+
+    /**
+     * Cell of expanded section within indexer, and index of selected prefix within strip.
+     */
+    private int mExpandedCell, mSelectedPrefix = -1;
+
+    /**
+     * Prefix strip's rect, and width of it.
+     */
+    private RectF mPrefixStripRect = new RectF();
+    private float mPrefixStripWidth;
+
+    /**
+     * Long press timeout used to expand prefix strip.
+     */
+    private int mLongPressTimeout;
+
+    /**
+     * Y axis where pointer last moved beyond touch slop, and the time it happened. Prefix strip
+     * expands once pointer stays within touch slop of it for long press timeout.
+     */
+    private float mStillY;
+    private long mStillSinceMillis;
+
+    /**
+     * Runnable used to expand prefix strip of hovered section. It's posted once per section and
+     * reposts itself while pointer keeps moving, instead of being reposted by every move.
+     */
+    private Runnable mExpandRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mRecyclerView == null) {
+                return;
+            }
+            long stillMillis = SystemClock.uptimeMillis() - mStillSinceMillis;
+            if (stillMillis < mLongPressTimeout) {
+                mRecyclerView.postDelayed(this, mLongPressTimeout - stillMillis);
+                return;
+            }
+            if (mPrefixIndex != null && mPrefixIndex.getTopPrefixCount(mHoveredSection) > 0) {
+                mExpandedSection = mHoveredSection;
+                mSelectedPrefix = -1;
+                redraw();
+            }
+        }
+    };
+
+    /**
+     * Secondary label shown below indicator in scrub mode and hierarchical mode.
+     */
+    private String mSecondarySection;
+
+    /**
+     * Paint used to draw secondary label and selected prefix.
+     */
+    private TextPaint mSecondaryTextPaint;
+
+    /**
+     * Paint used to draw label of current section, which is at the top of list.
+     */
+    private final TextPaint mHighlightTextPaint = new TextPaint();
+
+    /**
+     * Section at the top of list, which is highlighted within strip, or -1 if unknown.
+     */
+    private int mCurrentSection = -1;
+
+    /**
+     * Paint used to draw prefixes within prefix strip.
+     */
+    private final TextPaint mPrefixTextPaint = new TextPaint();
+
     /**
      * Indicate whether RecyclerView has enough space to draw indexer.
      */
@@ -143,6 +384,11 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
     @AnimationState
     private int mAnimationState = ANIMATION_STATE_OUT;
 
+    /**
+     * Names of animation states indexed by state, used by {@link #dump(PrintWriter, String)}.
+     */
+    private static final String[] ANIMATION_STATE_NAMES = {"out", "translatingIn", "in", "translatingOut"};
+
 
     /**
      * Translate animator.
@@ -192,52 +438,66 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
      */
     private boolean mIsDragging;
 
+    /**
+     * Metrics which durations are reported to, or null if metrics are disabled.
+     */
+    private IndexerMetrics mMetrics;
+
+    /**
+     * Section selected by the latest move, which is waiting to be on screen, or -1 if none, and
+     * the time when it was selected.
+     */
+    private int mDragTargetSection = -1;
+    private long mDragStartNanos;
+
+    /**
+     * Counters reported by {@link #dump(PrintWriter, String)}. They are bumped on the main thread
+     * and may be read from any thread.
+     */
+    private final AtomicLong mFrameCount = new AtomicLong();
+    private final AtomicLong mSectionLookupCount = new AtomicLong();
+    // Count of move events, samples batched into them by input dispatcher of which only the
+    // latest one is applied, moves staying within hovered section, and moves without any section.
+    private final AtomicLong mMoveCount = new AtomicLong();
+    private final AtomicLong mCoalescedSampleCount = new AtomicLong();
+    private final AtomicLong mSameSectionMoveCount = new AtomicLong();
+    private final AtomicLong mDroppedMoveCount = new AtomicLong();
+    // Count of transitions into each animation state.
+    private final AtomicLongArray mAnimationTransitions = new AtomicLongArray(ANIMATION_STATE_NAMES.length);
+
 
     public SimpleIndexer(Builder builder) {
+        mTracing = builder.mTracing;
         mIndexerString = builder.mIndexerString;
+        mIndicatorCache = new IndicatorCache(mIndexerString == null ? 0 : mIndexerString.length());
         if (TextUtils.isEmpty(mIndexerString)) {
             Log.w(TAG, "You have not set indexer string.");
             return;
         }
 
-        DisplayMetrics displayMetrics = builder.mContext.getResources().getDisplayMetrics();
+        mDisplayMetrics = builder.mContext.getResources().getDisplayMetrics();
         ViewConfiguration viewConfiguration = ViewConfiguration.get(builder.mContext);
         mScaledTouchSlop = viewConfiguration.getScaledTouchSlop();
+        mLongPressTimeout = ViewConfiguration.getLongPressTimeout();
 
-        mIndexerTextSize = builder.mIndexerTextSize <= DEFAULT_INDEXER_TEXT_SIZE_SP ?
-                DEFAULT_INDEXER_TEXT_SIZE_SP : builder.mIndexerTextSize;
-        mIndexerTextSize = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, mIndexerTextSize,
-                displayMetrics);
+        mIndexerTextSize = toIndexerTextSize(builder.mIndexerTextSize);
+        mPadding = toPadding(builder.mPadding);
 
-        int padding = builder.mPadding <= 0 ?
-                DEFAULT_PADDING_DP : builder.mPadding;
-        mPadding = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, padding,
-                displayMetrics);
+        acquireResources();
 
-        mIndexerTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
-        mIndexerTextPaint.setTextSize(mIndexerTextSize);
+        mTmpTextBound = new Rect();
 
-        Paint.FontMetrics fontMetrics = mIndexerTextPaint.getFontMetrics();
-        float fontMetricsHeight = fontMetrics.bottom - fontMetrics.top;
-        mCellWidth = mCellHeight = (int) Math.ceil(fontMetricsHeight);
+        int sectionCount = mIndexerString.length();
+        mVisibleSections = new int[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            mVisibleSections[i] = i;
+        }
+        mVisibleCount = sectionCount;
 
         mOutlineRect = new RectF();
         mOutlineRect.right = mCellWidth;
-        mOutlineRect.bottom = mCellHeight / 2.f + mCellHeight * mIndexerString.length() + mCellHeight / 2.f;
-
         mOutlinePath = new Path();
-        mOutlinePath.addArc(mOutlineRect.left, mOutlineRect.top, mOutlineRect.width(), mCellHeight,
-                180, 180);
-        mOutlinePath.rLineTo(0, mOutlineRect.height() - mCellHeight);
-        mOutlinePath.addArc(mOutlineRect.left, mOutlineRect.height() - mCellHeight,
-                mOutlineRect.width(), mOutlineRect.height(), 0, 180);
-        mOutlinePath.lineTo(0, mCellHeight / 2.f);
-
-        mOutlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mOutlinePaint.setStyle(Paint.Style.STROKE);
-        mOutlinePaint.setColor(Color.BLACK);
-        int outlineStrokeWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, DEFAULT_OUTLINE_STROKE_WIDTH_DP, displayMetrics);
-        mOutlinePaint.setStrokeWidth(outlineStrokeWidth);
+        updateOutline();
 
         mOuter = new RectF();
         offsetOuter();
@@ -245,7 +505,14 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
         mIndicatorBgColor = builder.mIndicatorColor <= 0 ?
                 DEFAULT_INDICATOR_BG_COLOR : builder.mIndicatorColor;
 
-        mTmpTextBound = new Rect();
+        mSecondaryTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        mSecondaryTextPaint.setTextSize(mIndexerTextSize);
+        mSecondaryTextPaint.setColor(mIndicatorBgColor);
+        mSecondaryTextPaint.setTextAlign(Paint.Align.RIGHT);
+
+        mHighlightTextPaint.set(mIndexerTextPaint);
+        mHighlightTextPaint.setColor(mIndicatorBgColor);
+
 
         mMaxTranslationX = mOutlineRect.width() + mPadding;
 
@@ -255,6 +522,232 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
         mTranslateAnimator.addListener(mAnimatorListener);
     }
 
+    /**
+     * Convert text size of indexer character from sp to pixels.
+     */
+    private int toIndexerTextSize(int spSize) {
+        spSize = spSize <= DEFAULT_INDEXER_TEXT_SIZE_SP ? DEFAULT_INDEXER_TEXT_SIZE_SP : spSize;
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, spSize, mDisplayMetrics);
+    }
+
+    /**
+     * Convert padding from dp to pixels.
+     */
+    private int toPadding(int dpPadding) {
+        dpPadding = dpPadding <= 0 ? DEFAULT_PADDING_DP : dpPadding;
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dpPadding, mDisplayMetrics);
+    }
+
+    /**
+     * Acquire paints and glyph geometry shared by identical indexers, and release the old ones.
+     * Shared paints are copied into the paints of this indexer, which are never reallocated.
+     */
+    private void acquireResources() {
+        IndexerResources resources = IndexerResources.acquire(mIndexerString, mIndexerTextSize, mPadding,
+                mDisplayMetrics, getClass().getName());
+        if (mResources != null) {
+            mResources.release();
+        }
+        mResources = resources;
+        mResources.copyPaintsTo(mIndexerTextPaint, mPrefixTextPaint, mOutlinePaint);
+        mCellWidth = mCellHeight = mResources.mCellSize;
+        mSectionLabels = mResources.mSectionLabels;
+        mLabelLeft = mResources.mLabelLeft;
+        mLabelBaselineOffset = mResources.mLabelBaselineOffset;
+        mPrefixStripWidth = mResources.mPrefixStripWidth;
+    }
+
+    /**
+     * Change indexer string of a live indexer, for example, after locale changed. All sections are
+     * shown until a section table matching the new string is set.
+     *
+     * @param indexerString indexer string.
+     */
+    public void setIndexerString(String indexerString) {
+        reconfigure(indexerString, mIndexerTextSize, mPadding, mIndicatorBgColor);
+    }
+
+    /**
+     * Change text size of a live indexer, for example, after font scale changed.
+     *
+     * @param spSize text size of indexer character in sp.
+     */
+    public void setIndexerTextSize(int spSize) {
+        reconfigure(mIndexerString, toIndexerTextSize(spSize), mPadding, mIndicatorBgColor);
+    }
+
+    /**
+     * Change indicator color of a live indexer.
+     *
+     * @param color indicator color.
+     */
+    public void setIndicatorColor(int color) {
+        reconfigure(mIndexerString, mIndexerTextSize, mPadding, color);
+    }
+
+    /**
+     * Change padding of a live indexer.
+     *
+     * @param dpPadding padding in dp.
+     */
+    public void setPadding(int dpPadding) {
+        reconfigure(mIndexerString, mIndexerTextSize, toPadding(dpPadding), mIndicatorBgColor);
+    }
+
+    /**
+     * Reconfigure indexer in place. Only the geometry of changed properties is computed again,
+     * buffers, path and animator are reused, and indexer is redrawn once.
+     */
+    private void reconfigure(String indexerString, int textSize, int padding, int color) {
+        if (mResources == null || TextUtils.isEmpty(indexerString)) {
+            Log.w(TAG, "Couldn't reconfigure indexer without indexer string or after released.");
+            return;
+        }
+        boolean stringChanged = !indexerString.equals(mIndexerString);
+        boolean geometryChanged = stringChanged || textSize != mIndexerTextSize || padding != mPadding;
+        boolean colorChanged = color != mIndicatorBgColor;
+        if (!geometryChanged && !colorChanged) {
+            return;
+        }
+
+        if (geometryChanged) {
+            mIndexerString = indexerString;
+            mIndexerTextSize = textSize;
+            mPadding = padding;
+            acquireResources();
+
+            if (stringChanged) {
+                int sectionCount = indexerString.length();
+                if (mVisibleSections.length < sectionCount) {
+                    mVisibleSections = new int[sectionCount];
+                }
+                // Sections of the old table don't match the new string.
+                mSectionTable = null;
+                mVisibleCount = 0;
+                updateVisibleSections(null);
+                mIndicatorCache.setSectionCount(sectionCount);
+                mSection = null;
+                mHoveredSection = -1;
+            }
+            collapsePrefixStrip();
+
+            mSecondaryTextPaint.setTextSize(textSize);
+            mHighlightTextPaint.set(mIndexerTextPaint);
+            mHighlightTextPaint.setColor(color);
+            mOutlineRect.right = mOutlineRect.left + mCellWidth;
+            updateOutline();
+            offsetOuter();
+            mMaxTranslationX = mOutlineRect.width() + mPadding;
+            mTranslationX = (float) mTranslateAnimator.getAnimatedValue() * mMaxTranslationX;
+            if (mRecyclerViewHeight > 0) {
+                checkSpace();
+            }
+        }
+
+        if (colorChanged) {
+            mIndicatorBgColor = color;
+            mSecondaryTextPaint.setColor(color);
+            mHighlightTextPaint.setColor(color);
+        }
+
+        // Cached indicators are rendered again into the same bitmaps if size is not changed.
+        mIndicatorCache.invalidate();
+        onIndicatorConfigChanged();
+        if (mRecyclerView != null) {
+            redraw();
+        }
+    }
+
+    /**
+     * Called after text size, padding, indexer string or indicator color of a live indexer changed.
+     * Subclass should update its indicator geometry and paints here, including the size passed to
+     * {@link #setIndicatorCacheSize(int, int)}.
+     */
+    protected void onIndicatorConfigChanged() {
+    }
+
+    /**
+     * Update outline's rect and path for count of visible sections. The path is reused.
+     */
+    private void updateOutline() {
+        mOutlineRect.bottom = mOutlineRect.top + mCellHeight / 2.f + mCellHeight * mVisibleCount
+                + mCellHeight / 2.f;
+
+        mOutlinePath.reset();
+        mOutlinePath.addArc(0, 0, mOutlineRect.width(), mCellHeight,
+                180, 180);
+        mOutlinePath.rLineTo(0, mOutlineRect.height() - mCellHeight);
+        mOutlinePath.addArc(0, mOutlineRect.height() - mCellHeight,
+                mOutlineRect.width(), mOutlineRect.height(), 0, 180);
+        mOutlinePath.lineTo(0, mCellHeight / 2.f);
+    }
+
+    /**
+     * Check whether RecyclerView has enough height to draw indexer.
+     */
+    private void checkSpace() {
+        if ((mRecyclerViewHeight - mOutlineRect.height()) / 2.f < mPadding) {
+            Log.w(TAG, "Couldn't show indexer. RecyclerView must have enough height!!!");
+            mHasEnoughSpace = false;
+        } else {
+            mHasEnoughSpace = true;
+        }
+    }
+
+    /**
+     * Drive indexer by the live sections of data set, empty sections are hidden. The indexer is
+     * updated in place, and it's redrawn only if the set of visible sections changed.
+     *
+     * @param table section table of data set, whose sections match indexer string,
+     *              or null to show all sections.
+     */
+    public void setSectionTable(SectionTable table) {
+        if (TextUtils.isEmpty(mIndexerString)) {
+            return;
+        }
+        mSectionTable = table;
+        if (mRecyclerView != null) {
+            updateCurrentSection(mRecyclerView);
+        }
+        if (!updateVisibleSections(table)) {
+            return;
+        }
+        updateOutline();
+        if (mRecyclerViewHeight > 0) {
+            checkSpace();
+        }
+        if (mRecyclerView != null) {
+            redraw();
+        }
+    }
+
+    /**
+     * Update visible sections in place.
+     *
+     * @param table section table of data set, or null to show all sections.
+     * @return true if the set of visible sections changed.
+     */
+    private boolean updateVisibleSections(SectionTable table) {
+        int sectionCount = mIndexerString.length();
+        boolean changed = false;
+        int visibleCount = 0;
+        for (int i = 0; i < sectionCount; i++) {
+            if (table != null && i < table.getSectionCount() && table.getSectionSize(i) == 0) {
+                continue;
+            }
+            if (visibleCount >= mVisibleCount || mVisibleSections[visibleCount] != i) {
+                changed = true;
+                mVisibleSections[visibleCount] = i;
+            }
+            visibleCount++;
+        }
+        if (!changed && visibleCount == mVisibleCount) {
+            return false;
+        }
+        mVisibleCount = visibleCount;
+        return true;
+    }
+
     private void offsetOuter() {
         mOuter.left = mOutlineRect.left - mPadding;
         mOuter.top = mOutlineRect.top - mPadding;
@@ -277,9 +770,11 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
         }
 
         if (mRecyclerView != null) {
+            cancelPendingJump();
             mRecyclerView.removeItemDecoration(this);
             mRecyclerView.removeOnItemTouchListener(mItemTouchListener);
             mRecyclerView.removeOnScrollListener(mOnScrollListener);
+            mIndicatorCache.clear();
         }
 
         mRecyclerView = recyclerView;
@@ -292,12 +787,53 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
     }
 
 
+    /**
+     * Detach from RecyclerView and release resources shared with identical indexers.
+     * The indexer should not be used any more after it's released.
+     */
+    public void release() {
+        attachToRecyclerView(null, null);
+        if (mTranslateAnimator != null) {
+            mTranslateAnimator.cancel();
+        }
+        mIndicatorCache.clear();
+        if (mResources != null) {
+            mResources.release();
+            mResources = null;
+        }
+    }
+
+    /**
+     * Get resources of indicator style, which are shared by indexers with the same class,
+     * indexer string, text size, padding and density.
+     *
+     * @return shared resources of style, or null if they have not been set.
+     */
+    protected Object getSharedStyleResources() {
+        return mResources != null ? mResources.getStyleResources() : null;
+    }
+
+    /**
+     * Share resources of indicator style with identical indexers. Shared resources must be
+     * immutable, so mutable objects such as paints and paths should be kept as templates and
+     * copied into objects owned by every indexer, once per change of shared resources.
+     *
+     * @param styleResources resources of style.
+     */
+    protected void setSharedStyleResources(Object styleResources) {
+        if (mResources != null) {
+            mResources.setStyleResources(styleResources);
+        }
+    }
+
+
     public static class Builder {
         Context mContext;
         int mIndexerTextSize; // sp
         int mIndicatorColor;
         int mPadding; //dp
         String mIndexerString;
+        boolean mTracing;
 
         public Builder(Context context, String indexerString) {
             mContext = context;
@@ -318,12 +854,58 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
             mPadding = dpPadding;
             return this;
         }
+
+        /**
+         * Emit trace sections around drawing and touch handling, which are shown by systrace and
+         * Perfetto. Tracing is disabled by default and costs nothing then.
+         */
+        public Builder tracing(boolean enabled) {
+            mTracing = enabled;
+            return this;
+        }
     }
 
 
     @Override
     public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        mFrameCount.incrementAndGet();
+        if (mMetrics == null) {
+            drawOver(c, parent);
+            return;
+        }
+        long start = System.nanoTime();
+        drawOver(c, parent);
+        long end = System.nanoTime();
+        mMetrics.record(IndexerMetrics.INDEXER_DRAW, end - start);
+        if (mDragTargetSection >= 0) {
+            if (isSectionOnScreen(parent, mDragTargetSection)) {
+                mMetrics.record(IndexerMetrics.DRAG_TO_CONTENT, end - mDragStartNanos);
+                mDragTargetSection = -1;
+            }
+        }
+    }
+
+    /**
+     * Begin a trace section if tracing is enabled.
+     *
+     * @param name constant name of section.
+     */
+    private void beginTraceSection(String name) {
+        if (mTracing) {
+            Trace.beginSection(name);
+        }
+    }
 
+    /**
+     * End the latest trace section if tracing is enabled.
+     */
+    private void endTraceSection() {
+        if (mTracing) {
+            Trace.endSection();
+        }
+    }
+
+    private void drawOver(Canvas c, RecyclerView parent) {
         // Check indexer string and animation state.
         if (TextUtils.isEmpty(mIndexerString) || mAnimationState == ANIMATION_STATE_OUT) {
             return;
@@ -333,16 +915,10 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
         if (mRecyclerViewWidth != parent.getWidth() || mRecyclerViewHeight != parent.getHeight()) {
             mRecyclerViewWidth = parent.getWidth();
             mRecyclerViewHeight = parent.getHeight();
-
-            if ((mRecyclerViewHeight - mOutlineRect.height()) / 2.f < mPadding) {
-                Log.w(TAG, "Couldn't show indexer. RecyclerView must have enough height!!!");
-                mHasEnoughSpace = false;
-            } else {
-                mHasEnoughSpace = true;
-            }
+            checkSpace();
         }
 
-        if (!mHasEnoughSpace || mTranslationX == 0) {
+        if (!mHasEnoughSpace || mVisibleCount == 0 || mTranslationX == 0) {
             return;
         }
 
@@ -351,10 +927,134 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
                 parent.getHeight() / 2.f - mOutlineRect.height() / 2.f);
         offsetOuter();
 
+        beginTraceSection(TRACE_DRAW_STRIP);
         drawOutlineAndIndexer(c);
-
-        if (mShowIndicator && mSection != null) {
+        endTraceSection();
+
+        if (mExpandedSection >= 0) {
+            beginTraceSection(TRACE_DRAW_PREFIX_STRIP);
+            drawPrefixStrip(c);
+            endTraceSection();
+        } else if (mShowIndicator && mSection != null) {
+            beginTraceSection(TRACE_DRAW_INDICATOR);
             drawIndicator(c, mOuter, mIndexerBaseY, mSection);
+            if (mSecondarySection != null) {
+                drawSecondaryIndicator(c, mOuter, mIndexerBaseY, mSecondarySection);
+            }
+            endTraceSection();
+        }
+    }
+
+    /**
+     * Check whether any item of section is laid out on screen.
+     *
+     * @param parent  RecyclerView.
+     * @param section index of section.
+     * @return true if section is on screen.
+     */
+    private boolean isSectionOnScreen(RecyclerView parent, int section) {
+        RecyclerView.Adapter adapter = parent.getAdapter();
+        final int childCount = parent.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            int position = parent.getChildAdapterPosition(parent.getChildAt(i));
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+            int childSection = -1;
+            mSectionLookupCount.incrementAndGet();
+            if (mSectionTable != null) {
+                childSection = mSectionTable.getSectionForPosition(position);
+            } else if (adapter instanceof SectionIndexer) {
+                childSection = ((SectionIndexer) adapter).getSectionForPosition(position);
+            }
+            if (childSection == section) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Set metrics, which receive duration of {@link #onDrawOver} and drag-to-content latency,
+     * that is, time from the move selecting a section to the frame showing the section.
+     *
+     * @param metrics metrics, or null to disable metrics.
+     */
+    public void setMetrics(IndexerMetrics metrics) {
+        mMetrics = metrics;
+        mDragTargetSection = -1;
+    }
+
+    /**
+     * Print state and counters of indexer, for example, from {@code Activity#dump} so that they
+     * are shown by {@code adb shell dumpsys activity}.
+     *
+     * @param writer writer to print to.
+     * @param prefix prefix of every line.
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        writer.print(prefix);
+        writer.println(getClass().getSimpleName() + ":");
+        String innerPrefix = prefix + "  ";
+        writer.print(innerPrefix);
+        writer.println(String.format(Locale.US, "sections: %d/%d visible, current=%d, table=%s, scrub=%s, prefix=%s",
+                mVisibleCount, mSectionLabels == null ? 0 : mSectionLabels.length, mCurrentSection,
+                mSectionTable != null, mScrubTable != null, mPrefixIndex != null));
+        long frames = mFrameCount.get();
+        long lookups = mSectionLookupCount.get();
+        writer.print(innerPrefix);
+        writer.println(String.format(Locale.US, "frames=%d sectionLookups=%d lookupsPerFrame=%.2f",
+                frames, lookups, frames == 0 ? 0.f : (float) lookups / frames));
+        writer.print(innerPrefix);
+        writer.println(String.format(Locale.US, "animation: state=%s, in=%d translatingIn=%d translatingOut=%d out=%d",
+                ANIMATION_STATE_NAMES[mAnimationState],
+                mAnimationTransitions.get(ANIMATION_STATE_IN),
+                mAnimationTransitions.get(ANIMATION_STATE_TRANSLATING_IN),
+                mAnimationTransitions.get(ANIMATION_STATE_TRANSLATING_OUT),
+                mAnimationTransitions.get(ANIMATION_STATE_OUT)));
+        writer.print(innerPrefix);
+        writer.println(String.format(Locale.US, "drag: moves=%d coalescedSamples=%d sameSection=%d dropped=%d",
+                mMoveCount.get(), mCoalescedSampleCount.get(), mSameSectionMoveCount.get(),
+                mDroppedMoveCount.get()));
+        mIndicatorCache.dump(writer, innerPrefix);
+    }
+
+    /**
+     * Drop cached indicators when memory gets short, the indicator shown while dragging is kept.
+     * Indicators are rendered again the next time they are shown.
+     *
+     * @param tier tier of {@link CacheRegistry}.
+     * @return bytes freed.
+     */
+    @Override
+    public long trim(int tier) {
+        if (tier >= CacheRegistry.TIER_ALL) {
+            // Resources released by other indexers are measured again if they are needed.
+            IndexerResources.trimUnused();
+        }
+        return mIndicatorCache.clearExcept(mIsDragging ? mSectionIndex : -1);
+    }
+
+    /**
+     * Draw prefix strip of expanded section at the left of outline, centered on the cell of
+     * expanded section as far as possible.
+     *
+     * @param c canvas used to draw.
+     */
+    private void drawPrefixStrip(Canvas c) {
+        int count = mPrefixIndex.getTopPrefixCount(mExpandedSection);
+        float height = mCellHeight * (count + 1);
+        float centerY = mOutlineRect.top + mCellHeight * (mExpandedCell + 1);
+        float top = Math.min(centerY - height / 2.f, mRecyclerViewHeight - mPadding - height);
+        top = Math.max(top, mPadding);
+        mPrefixStripRect.set(mOuter.left - mPrefixStripWidth, top, mOuter.left, top + height);
+
+        float radius = mCellHeight / 2.f;
+        c.drawRoundRect(mPrefixStripRect, radius, radius, mOutlinePaint);
+        for (int i = 0; i < count; i++) {
+            float baseY = mPrefixStripRect.top + mCellHeight * (i + 1) + mLabelBaselineOffset[mExpandedSection];
+            c.drawText(mPrefixIndex.getTopPrefix(mExpandedSection, i), mPrefixStripRect.right - mPadding,
+                    baseY, i == mSelectedPrefix ? mSecondaryTextPaint : mPrefixTextPaint);
         }
     }
 
@@ -369,13 +1069,12 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
         c.translate(mOutlineRect.left, mOutlineRect.top);
         c.drawPath(mOutlinePath, mOutlinePaint);
 
-        // 2. Draw indexer.
-        for (int i = 0; i < mIndexerString.length(); i++) {
-            String character = String.valueOf(mIndexerString.charAt(i));
-            mIndexerTextPaint.getTextBounds(character, 0, character.length(), mTmpTextBound);
-            float left = mCellWidth / 2.f - mTmpTextBound.width() / 2.f;
-            float top = mCellHeight * (i + 1) + mTmpTextBound.height() / 2.f;
-            c.drawText(character, left, top, mIndexerTextPaint);
+        // 2. Draw visible sections of indexer.
+        for (int i = 0; i < mVisibleCount; i++) {
+            int section = mVisibleSections[i];
+            float top = mCellHeight * (i + 1) + mLabelBaselineOffset[section];
+            c.drawText(mSectionLabels[section], mLabelLeft[section], top,
+                    section == mCurrentSection ? mHighlightTextPaint : mIndexerTextPaint);
         }
 
         c.restore();
@@ -384,9 +1083,69 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
 
     public abstract void drawIndicator(Canvas c, RectF outer, float indicatorBaseY, String indicatorChar);
 
+    /**
+     * Draw secondary label of scrub mode and hierarchical mode. By default, it's drawn at the left of outline,
+     * just below the indicator base y.
+     *
+     * @param c              canvas used to draw.
+     * @param outer          outer rect of outline.
+     * @param indicatorBaseY indicator's base y.
+     * @param secondary      secondary label.
+     */
+    protected void drawSecondaryIndicator(Canvas c, RectF outer, float indicatorBaseY, String secondary) {
+        c.drawText(secondary, outer.left, indicatorBaseY + mCellHeight, mSecondaryTextPaint);
+    }
+
+    /**
+     * Set size of indicator rendered into cache. Subclass which draws indicator by
+     * {@link #drawCachedIndicator(Canvas, float, float, String)} must call it, and
+     * cached indicators are dropped if size changed.
+     *
+     * @param width  width of indicator.
+     * @param height height of indicator.
+     */
+    protected void setIndicatorCacheSize(int width, int height) {
+        mIndicatorCache.setSize(width, height);
+    }
+
+    /**
+     * Drop cached indicators, for example, after color of indicator changed.
+     */
+    protected void invalidateIndicatorCache() {
+        mIndicatorCache.clear();
+    }
+
+    /**
+     * Draw indicator of current section from cache. The indicator is rendered by
+     * {@link #renderIndicator(Canvas, String)} only once per section, and then it is just
+     * blitted at the new position while dragging.
+     *
+     * @param c             canvas used to draw.
+     * @param left          left of indicator.
+     * @param top           top of indicator.
+     * @param indicatorChar section string.
+     */
+    protected void drawCachedIndicator(Canvas c, float left, float top, String indicatorChar) {
+        Bitmap bitmap = mIndicatorCache.get(mSectionIndex, indicatorChar, mIndicatorRenderer);
+        if (bitmap != null) {
+            c.drawBitmap(bitmap, left, top, null);
+        }
+    }
+
+    /**
+     * Render indicator into cache, the origin of canvas is the top left of indicator.
+     * Subclass which draws indicator from cache must override it.
+     *
+     * @param c             canvas backed by cache bitmap.
+     * @param indicatorChar section string.
+     */
+    protected void renderIndicator(Canvas c, String indicatorChar) {
+    }
+
     private RecyclerView.SimpleOnItemTouchListener mItemTouchListener = new RecyclerView.SimpleOnItemTouchListener() {
         @Override
         public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+            beginTraceSection(TRACE_TOUCH);
             boolean handled = false;
             // Intercept it as long as pointer is in outline rect.
             if (isPointInsideOutline(e.getX(), e.getY())) {
@@ -400,21 +1159,35 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
                 updateIndicatorState(e.getY());
                 handled = true;
             }
+            endTraceSection();
             return handled;
         }
 
         @Override
         public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+            beginTraceSection(TRACE_TOUCH);
             switch (e.getAction()) {
                 case MotionEvent.ACTION_MOVE:
-                    updateIndicatorState(e.getY());
+                    mMoveCount.incrementAndGet();
+                    mCoalescedSampleCount.addAndGet(e.getHistorySize());
+                    if (mExpandedSection >= 0 && e.getX() < mOuter.left) {
+                        // Pointer moves into prefix strip.
+                        updatePrefixState(e.getY());
+                    } else {
+                        updateIndicatorState(e.getY());
+                    }
                     break;
                 case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_CANCEL:
                     mIsDragging = false;
+                    mHoveredSection = -1;
+                    collapsePrefixStrip();
+                    mSecondarySection = null;
                     setIndicatorState(false);
                     postHideRunnableDelayed(TRANSLATE_OUT_DELAY_AFTER_VISIBLE_MS);
                     break;
             }
+            endTraceSection();
         }
     };
 
@@ -437,21 +1210,102 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
     }
 
     private void updateIndicatorState(float y) {
-        int index = (int) ((y - mOutlineRect.top - mCellHeight / 2.f) / mCellHeight);
-        index = Math.max(Math.min(index, mIndexerString.length() - 1), 0);
+        if (mVisibleCount == 0) {
+            mDroppedMoveCount.incrementAndGet();
+            return;
+        }
+        mSectionLookupCount.incrementAndGet();
+        // Lookup of the move, from touch y to section, and to position and label in scrub mode.
+        beginTraceSection(TRACE_SECTION_LOOKUP);
+        float cellOffset = HitTest.getCellOffset(y, mOutlineRect.top, mCellHeight);
+        int cell = HitTest.getCell(cellOffset, mVisibleCount);
+        int index = mVisibleSections[cell];
+        boolean scrubbing = mScrubTable != null && mScrubListener != null;
+        int scrubPosition = RecyclerView.NO_POSITION;
+        String scrubLabel = null;
+        if (scrubbing) {
+            // Scrub mode, map touch y within cell to fraction of section.
+            float fraction = cellOffset - cell;
+            scrubPosition = mScrubTable.getPosition(index, fraction);
+            scrubLabel = mScrubTable.getLabel(index, fraction);
+        }
+        endTraceSection();
+
+        // Report hovered section before jump, so target section can be prefetched.
+        if (index == mHoveredSection) {
+            mSameSectionMoveCount.incrementAndGet();
+            // Pointer is not still within the section, long press starts over from here.
+            if (mPrefixIndex != null && mExpandedSection < 0
+                    && Math.abs(y - mStillY) > mScaledTouchSlop) {
+                mExpandedCell = cell;
+                mStillY = y;
+                mStillSinceMillis = SystemClock.uptimeMillis();
+            }
+        } else {
+            mHoveredSection = index;
+            // Latency is measured from the move selecting the section.
+            if (mMetrics != null) {
+                mDragStartNanos = System.nanoTime();
+                mDragTargetSection = index;
+            }
+            if (mHoverListener != null) {
+                mHoverListener.onSectionHovered(mRecyclerView, index);
+            }
+            // Restart long press for the new section in hierarchical mode.
+            if (mPrefixIndex != null) {
+                collapsePrefixStrip();
+                mExpandedCell = cell;
+                mStillY = y;
+                mStillSinceMillis = SystemClock.uptimeMillis();
+                mRecyclerView.postDelayed(mExpandRunnable, mLongPressTimeout);
+            }
+        }
 
-        // Callback.
-        if (mListener != null) {
-            mListener.onScrolled(mRecyclerView, index);
+        // Callback, moves are coalesced into one jump to the latest section or position.
+        mSecondarySection = scrubbing ? scrubLabel : null;
+        if (scrubbing || mListener != null) {
+            postJump(index, scrubPosition);
         }
 
-        mIndexerBaseY = (index + 1) * mCellHeight + mCellHeight / 2.f + mOutlineRect.top;
+        mIndexerBaseY = (cell + 1) * mCellHeight + mCellHeight / 2.f + mOutlineRect.top;
 
-        mSection = String.valueOf(mIndexerString.charAt(index));
+        mSectionIndex = index;
+        mSection = mSectionLabels[index];
 
         setIndicatorState(true);
     }
 
+    /**
+     * Post jump to section, or to position within section in scrub mode. A pending jump is
+     * replaced by the latest one.
+     *
+     * @param section  index of section.
+     * @param position exact position in scrub mode, or {@link RecyclerView#NO_POSITION}.
+     */
+    private void postJump(int section, int position) {
+        if (mPendingJumpSection < 0) {
+            mIdleSinceJumpPosted = false;
+            mJumpDeferred = false;
+            Looper.myQueue().addIdleHandler(mJumpIdleHandler);
+            Choreographer.getInstance().postFrameCallback(mJumpCallback);
+        }
+        mPendingJumpSection = section;
+        mPendingScrubPosition = position;
+    }
+
+    /**
+     * Cancel pending jump, if any.
+     */
+    private void cancelPendingJump() {
+        if (mPendingJumpSection < 0) {
+            return;
+        }
+        Choreographer.getInstance().removeFrameCallback(mJumpCallback);
+        Looper.myQueue().removeIdleHandler(mJumpIdleHandler);
+        mPendingJumpSection = -1;
+        mPendingScrubPosition = RecyclerView.NO_POSITION;
+    }
+
     private void setIndicatorState(boolean show) {
         mShowIndicator = show;
         redraw();
@@ -459,7 +1313,8 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
 
     public interface onScrollListener {
         /**
-         * Callback method to be invoked when indexer is touched.
+         * Callback method to be invoked on a frame after indexer is touched, once main thread has
+         * been idle. Moves in between are coalesced into the latest section.
          *
          * @param sectionIndex index of section within indexer string.
          */
@@ -467,6 +1322,125 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
     }
 
 
+    /**
+     * Update selected prefix of expanded section, and jump to the start of it.
+     *
+     * @param y Y axis of a motion event.
+     */
+    private void updatePrefixState(float y) {
+        int count = mPrefixIndex.getTopPrefixCount(mExpandedSection);
+        int index = HitTest.getCell(HitTest.getCellOffset(y, mPrefixStripRect.top, mCellHeight), count);
+        if (index == mSelectedPrefix) {
+            return;
+        }
+        mSelectedPrefix = index;
+        String prefix = mPrefixIndex.getTopPrefix(mExpandedSection, index);
+        int position = mPrefixIndex.getPositionForPrefix(prefix);
+        if (mPrefixListener != null && position >= 0) {
+            mPrefixListener.onPrefixSelected(mRecyclerView, mExpandedSection, prefix, position);
+        }
+        mSecondarySection = prefix;
+        redraw();
+    }
+
+    /**
+     * Collapse prefix strip and cancel pending long press.
+     */
+    private void collapsePrefixStrip() {
+        if (mRecyclerView != null) {
+            mRecyclerView.removeCallbacks(mExpandRunnable);
+        }
+        mExpandedSection = -1;
+        mSelectedPrefix = -1;
+    }
+
+    /**
+     * Enable hierarchical mode, in which a long press on a section expands a strip of its most
+     * populated prefixes, and {@link onPrefixListener} receives the start position of the
+     * selected prefix. The index should be set again once data set changed.
+     *
+     * @param index prefix index built from data set, or null to disable hierarchical mode.
+     */
+    public void setPrefixIndex(PrefixIndex index) {
+        collapsePrefixStrip();
+        mPrefixIndex = index;
+    }
+
+    /**
+     * Set prefix listener used in hierarchical mode.
+     *
+     * @param listener prefix listener.
+     */
+    public void setOnPrefixListener(onPrefixListener listener) {
+        mPrefixListener = listener;
+    }
+
+    public interface onPrefixListener {
+        /**
+         * Callback method to be invoked when a prefix is selected in hierarchical mode.
+         *
+         * @param sectionIndex index of section within indexer string.
+         * @param prefix       selected prefix.
+         * @param position     start position of prefix.
+         */
+        void onPrefixSelected(RecyclerView rv, int sectionIndex, String prefix, int position);
+    }
+
+    /**
+     * Set hover listener, which is notified as soon as pointer moves onto a section. The jump to
+     * the section is committed by scroll listener or scrub listener on a later frame, after main
+     * thread has been idle once, so work which the listener schedules in idle time, for example,
+     * warming rows of the section, runs before the jump is laid out.
+     *
+     * @param listener hover listener.
+     */
+    public void setOnSectionHoverListener(onSectionHoverListener listener) {
+        mHoverListener = listener;
+    }
+
+    public interface onSectionHoverListener {
+        /**
+         * Callback method to be invoked when pointer moves onto a section.
+         *
+         * @param sectionIndex index of section within indexer string.
+         */
+        void onSectionHovered(RecyclerView rv, int sectionIndex);
+    }
+
+    /**
+     * Enable scrub mode, in which touch y within a cell is mapped to a position inside the
+     * section, and {@link onScrubListener} receives exact adapter position instead of section.
+     * The table should be set again once data set changed.
+     *
+     * @param table precomputed scrub table, or null to disable scrub mode.
+     */
+    public void setScrubTable(ScrubTable table) {
+        mScrubTable = table;
+        mSecondarySection = null;
+    }
+
+    /**
+     * Set scrub listener, it takes place of scroll listener in scrub mode.
+     *
+     * @param listener scrub listener.
+     */
+    public void setOnScrubListener(onScrubListener listener) {
+        mScrubListener = listener;
+    }
+
+    public interface onScrubListener {
+        /**
+         * Callback method to be invoked when indexer is touched in scrub mode. Like scroll
+         * listener, it's invoked on a frame after the move, once main thread has been idle, and
+         * moves in between are coalesced into the latest position.
+         *
+         * @param sectionIndex index of section within indexer string.
+         * @param position     exact adapter position within section.
+         */
+        void onScrubbed(RecyclerView rv, int sectionIndex, int position);
+    }
+
+
     private RecyclerView.OnScrollListener mOnScrollListener = new RecyclerView.OnScrollListener() {
         @Override
         public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
@@ -477,10 +1451,40 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
             if (Math.abs(dy) >= mScaledTouchSlop) {
                 translateIn();
             }
+            updateCurrentSection(recyclerView);
         }
     };
 
 
+    /**
+     * Resolve section at the top of list from section table in O(log k), and redraw only if it
+     * changed. Without a section table nothing is highlighted, so scrolling never moves cursor.
+     */
+    private void updateCurrentSection(RecyclerView recyclerView) {
+        int section = -1;
+        if (mSectionTable != null && recyclerView.getChildCount() > 0) {
+            int position;
+            RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            if (layoutManager instanceof LinearLayoutManager) {
+                position = ((LinearLayoutManager) layoutManager).findFirstVisibleItemPosition();
+            } else {
+                position = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(0));
+            }
+            if (position != RecyclerView.NO_POSITION && position < mSectionTable.getItemCount()) {
+                mSectionLookupCount.incrementAndGet();
+                section = mSectionTable.getSectionForPosition(position);
+            }
+        }
+        if (section == mCurrentSection) {
+            return;
+        }
+        mCurrentSection = section;
+        if (mAnimationState != ANIMATION_STATE_OUT) {
+            redraw();
+        }
+    }
+
+
     /**
      * Translate indexer in from right to left.
      */
@@ -490,7 +1494,7 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
                 // If animation is translating out, cancel it and execute translate in animation.
                 mTranslateAnimator.cancel(); // fall through
             case ANIMATION_STATE_OUT:
-                mAnimationState = ANIMATION_STATE_TRANSLATING_IN;
+                setAnimationState(ANIMATION_STATE_TRANSLATING_IN);
                 mTranslateAnimator.setFloatValues((float) mTranslateAnimator.getAnimatedValue(), 1);
                 mTranslateAnimator.setInterpolator(mInInterpolator);
                 mTranslateAnimator.start();
@@ -508,7 +1512,7 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
                 // If animation is translating in, cancel it and execute translate out animation.
                 mTranslateAnimator.cancel();// fall through
             case ANIMATION_STATE_IN:
-                mAnimationState = ANIMATION_STATE_TRANSLATING_OUT;
+                setAnimationState(ANIMATION_STATE_TRANSLATING_OUT);
                 mTranslateAnimator.setFloatValues((float) mTranslateAnimator.getAnimatedValue(), 0);
                 mTranslateAnimator.setInterpolator(mOutInterpolator);
                 mTranslateAnimator.start();
@@ -517,6 +1521,12 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
     }
 
 
+    private void setAnimationState(@AnimationState int state) {
+        mAnimationState = state;
+        mAnimationTransitions.incrementAndGet(state);
+    }
+
+
     /**
      * Animator update listener used to update variable mTranslationX and request RecyclerView
      * to redraw.
@@ -552,9 +1562,9 @@ public abstract class SimpleIndexer extends RecyclerView.ItemDecoration {
 
             float animatedValue = (float) mTranslateAnimator.getAnimatedValue();
             if (animatedValue == 0) { // translate out complete.
-                mAnimationState = ANIMATION_STATE_OUT;
+                setAnimationState(ANIMATION_STATE_OUT);
             } else { // translate in complete.
-                mAnimationState = ANIMATION_STATE_IN;
+                setAnimationState(ANIMATION_STATE_IN);
                 // If is not dragging, post a hide runnable within RecyclerView.
                 if (!mIsDragging) {
                     postHideRunnableDelayed(TRANSLATE_OUT_DELAY_AFTER_VISIBLE_MS);
@@ -11,31 +11,69 @@ import android.text.TextPaint;
  */
 
 public class SquareIndexer extends SimpleIndexer {
-    private RectF mSquareRect;
-    private TextPaint mSquareTextPaint;
+    private final RectF mSquareRect = new RectF();
+    private final TextPaint mSquareTextPaint = new TextPaint();
     private Paint mSquarePaint;
+    // shared resources last copied into rect and text paint
+    private SquareResources mAppliedResources;
 
     public SquareIndexer(Builder builder) {
         super(builder);
         mSquarePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mSquarePaint.setStyle(Paint.Style.FILL);
+        onIndicatorConfigChanged();
+    }
+
+    @Override
+    protected void onIndicatorConfigChanged() {
         mSquarePaint.setColor(mIndicatorBgColor);
 
-        mSquareTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
-        mSquareTextPaint.setColor(Color.WHITE);
-        mSquareTextPaint.setTextSize(mIndexerTextSize * 2);
+        // Square's text paint and rect are measured once for identical indexers, each of them
+        // draws with its own copies, which are updated in place only when the shared ones change.
+        SquareResources resources = (SquareResources) getSharedStyleResources();
+        if (resources == null) {
+            resources = new SquareResources(mIndexerTextSize);
+            setSharedStyleResources(resources);
+        }
+        if (resources != mAppliedResources) {
+            mSquareTextPaint.set(resources.mTextPaint);
+            mSquareRect.set(resources.mSquareRect);
+            mAppliedResources = resources;
+        }
+        float diameter = mSquareRect.width();
+
+        setIndicatorCacheSize((int) Math.ceil(diameter), (int) Math.ceil(diameter));
+    }
+
+    /**
+     * Immutable resources shared by identical square indexers, they are templates which are
+     * copied and never drawn with.
+     */
+    private static class SquareResources {
+        final TextPaint mTextPaint;
+        final RectF mSquareRect;
+
+        SquareResources(int indexerTextSize) {
+            mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+            mTextPaint.setColor(Color.WHITE);
+            mTextPaint.setTextSize(indexerTextSize * 2);
 
-        Paint.FontMetrics fontMetrics = mSquareTextPaint.getFontMetrics();
-        float balloonBoundSize = fontMetrics.bottom - fontMetrics.top;
-        float diameter = (float) Math.hypot(balloonBoundSize, balloonBoundSize);
+            Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+            float boundSize = fontMetrics.bottom - fontMetrics.top;
+            float diameter = (float) Math.hypot(boundSize, boundSize);
 
-        mSquareRect = new RectF(0, 0, diameter, diameter);
+            mSquareRect = new RectF(0, 0, diameter, diameter);
+        }
     }
 
     @Override
     public void drawIndicator(Canvas c, RectF outer, float indicatorBaseY, String indicatorChar) {
-        c.translate((c.getWidth() - mSquareRect.width()) / 2.f,
-                (c.getHeight() - mSquareRect.height()) / 2.f);
+        drawCachedIndicator(c, (c.getWidth() - mSquareRect.width()) / 2.f,
+                (c.getHeight() - mSquareRect.height()) / 2.f, indicatorChar);
+    }
+
+    @Override
+    protected void renderIndicator(Canvas c, String indicatorChar) {
         float radius = mSquareRect.width() / 8.f;
         c.drawRoundRect(mSquareRect, radius, radius, mSquarePaint);
 